@@ -1,6 +1,7 @@
 package de.sevenfactory.leanbackdemo;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.widget.VideoView;
@@ -9,8 +10,11 @@ import de.sevenfactory.leanback.LeanbackActivity;
 
 public class MainActivity extends LeanbackActivity {
 
+    private static final String STATE_POSITION = "position";
+
     private MenuItem  mFullscreenButton;
     private VideoView mVideoView;
+    private int       mPosition;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -22,10 +26,26 @@ public class MainActivity extends LeanbackActivity {
 
         // Video View
         mVideoView = (VideoView) findViewById(R.id.video_view);
+        mVideoView.setVideoPath(getString(R.string.video_url));
+
+        if (savedInstanceState != null) {
+            mPosition = savedInstanceState.getInt(STATE_POSITION);
+        }
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+
+        outState.putInt(STATE_POSITION, mVideoView.isPlaying() ? mVideoView.getCurrentPosition() : mPosition);
     }
 
     @Override
     protected void onPause() {
+        // Keep the restored position if playback did not start yet
+        if (mVideoView.isPlaying()) {
+            mPosition = mVideoView.getCurrentPosition();
+        }
         mVideoView.pause();
 
         super.onPause();
@@ -35,10 +55,15 @@ public class MainActivity extends LeanbackActivity {
     protected void onResume() {
         super.onResume();
 
-        mVideoView.setVideoPath(getString(R.string.video_url));
+        mVideoView.seekTo(mPosition);
         mVideoView.start();
     }
 
+    @Override
+    protected void onFirstFrame(long timeToFirstFrameNanos) {
+        Log.i("Startup", "Time to first frame: " + timeToFirstFrameNanos / 1000000 + " ms");
+    }
+
     /* Menu */
 
     @Override
@@ -46,6 +71,7 @@ public class MainActivity extends LeanbackActivity {
         getMenuInflater().inflate(R.menu.menu, menu);
 
         mFullscreenButton = menu.findItem(R.id.menu_fullscreen);
+        updateFullscreenButton(isFullscreen());
 
         return true;
     }
@@ -67,6 +93,13 @@ public class MainActivity extends LeanbackActivity {
     public void onFullscreenChanged(boolean isFullscreen) {
         super.onFullscreenChanged(isFullscreen);
 
+        // The menu may not exist yet when the state is restored
+        if (mFullscreenButton != null) {
+            updateFullscreenButton(isFullscreen);
+        }
+    }
+
+    private void updateFullscreenButton(boolean isFullscreen) {
         if (isFullscreen) {
             mFullscreenButton.setIcon(R.drawable.ic_fullscreen_exit_white_36dp);
         } else {
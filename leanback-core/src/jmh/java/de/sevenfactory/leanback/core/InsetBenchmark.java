@@ -0,0 +1,67 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Recomputation of insets and paddings on system UI and rotation changes.
+ */
+@State(Scope.Thread)
+public class InsetBenchmark {
+
+    // Insets of portrait and landscape with navigation bar at the bottom and at the side
+    private static final int[][] INSETS = {
+            {0, 72, 0, 144},
+            {0, 72, 144, 0},
+    };
+
+    private final InsetState mInsets = new InsetState();
+    private final int[] mPadding = new int[4];
+
+    private int mIndex;
+
+    @Benchmark
+    public int updateChanged() {
+        int[] insets = INSETS[mIndex++ & 1];
+
+        mInsets.update(insets[0], insets[1], insets[2], insets[3]);
+        mInsets.getContainerPadding(false, mPadding);
+
+        return mPadding[2];
+    }
+
+    @Benchmark
+    public int updateUnchanged() {
+        int[] insets = INSETS[0];
+
+        mInsets.update(insets[0], insets[1], insets[2], insets[3]);
+        mInsets.getContainerPadding(false, mPadding);
+
+        return mPadding[2];
+    }
+}
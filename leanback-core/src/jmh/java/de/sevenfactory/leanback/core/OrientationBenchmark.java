@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Classification of gravity sensor samples, i.e. the work done per sensor event.
+ */
+@State(Scope.Thread)
+public class OrientationBenchmark {
+
+    private static final int  SAMPLE_COUNT          = 4096;
+    private static final long SAMPLE_INTERVAL_NANOS = 20000000L;
+
+    private final float[] mX = new float[SAMPLE_COUNT];
+    private final float[] mY = new float[SAMPLE_COUNT];
+
+    private OrientationEngine    mEngine;
+    private SensorSamplingPolicy mPolicy;
+
+    private int  mIndex;
+    private long mTimestamp;
+
+    @Setup
+    public void setUp() {
+        // Handheld device wobbling around the diagonal between portrait and landscape
+        Random random = new Random(42);
+
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            double angle = Math.toRadians(45 + random.nextGaussian() * 20);
+
+            mX[i] = (float) Math.sin(angle);
+            mY[i] = (float) Math.cos(angle);
+        }
+
+        mEngine = new OrientationEngine();
+        mPolicy = new SensorSamplingPolicy();
+    }
+
+    @Benchmark
+    public int classify() {
+        int i = mIndex++ & (SAMPLE_COUNT - 1);
+
+        return OrientationEngine.classify(mX[i], mY[i], OrientationEngine.ORIENTATION_PORTRAIT, OrientationEngine.DEFAULT_HYSTERESIS_DEGREES);
+    }
+
+    @Benchmark
+    public boolean onSample() {
+        int i = mIndex++ & (SAMPLE_COUNT - 1);
+        mTimestamp += SAMPLE_INTERVAL_NANOS;
+
+        boolean changed = mEngine.onSample(mX[i], mY[i], mTimestamp);
+
+        return mPolicy.onSample(mX[i], mY[i], mTimestamp) || changed;
+    }
+}
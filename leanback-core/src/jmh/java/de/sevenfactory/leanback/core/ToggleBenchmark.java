@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Throughput of fullscreen toggles as committed by the layout, i.e. request, commit and
+ * state change, including the insets selection and the paddings of container and children.
+ */
+@State(Scope.Thread)
+public class ToggleBenchmark {
+
+    private final FullscreenStateMachine mState = new FullscreenStateMachine();
+    private final InsetState mInsets = new InsetState();
+    private final int[] mPadding = new int[4];
+
+    public ToggleBenchmark() {
+        mInsets.update(0, 72, 0, 144);
+    }
+
+    @Benchmark
+    public int toggle() {
+        return commitToggle(false);
+    }
+
+    @Benchmark
+    public int toggleAnimated() {
+        int padding = commitToggle(true);
+        mState.finishTransition();
+
+        return padding;
+    }
+
+    /* Helpers */
+
+    private int commitToggle(boolean animated) {
+        boolean isFullscreen = !mState.isFullscreenRequested();
+
+        mState.request(isFullscreen);
+
+        if (mState.takeRequest()) {
+            mState.setFullscreen(isFullscreen, animated);
+        }
+
+        mInsets.select(InsetState.ROTATION_0, mState.isFullscreen());
+        mInsets.getContainerPadding(mState.isFullscreen(), mPadding);
+        mInsets.getChildPadding(mState.isFullscreen(), mPadding);
+
+        return mPadding[1];
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+/**
+ * State of a fullscreen capable layout, including animated transitions
+ * between embedded and fullscreen mode.
+ * <p/>
+ * Requests from several sources, e.g. a user toggle and a rotation, are collected with
+ * {@link #request(boolean)} and applied at once with {@link #takeRequest()}, so only the
+ * net change of all requests in between is carried out.
+ */
+public final class FullscreenStateMachine {
+
+    public static final int STATE_EMBEDDED   = 0;
+    public static final int STATE_ENTERING   = 1;
+    public static final int STATE_FULLSCREEN = 2;
+    public static final int STATE_EXITING    = 3;
+
+    private static final int NO_REQUEST = -1;
+
+    private int mState   = STATE_EMBEDDED;
+    private int mRequest = NO_REQUEST;
+
+    /**
+     * Request a target state, replacing a pending request.
+     *
+     * @return true if this is the first pending request, i.e. it has to be scheduled
+     */
+    public boolean request(boolean isFullscreen) {
+        if (mRequest != NO_REQUEST) {
+            mRequest = isFullscreen ? 1 : 0;
+            return false;
+        }
+
+        if (isFullscreen == isFullscreen()) {
+            // Already the current or target state
+            return false;
+        }
+
+        mRequest = isFullscreen ? 1 : 0;
+
+        return true;
+    }
+
+    /**
+     * Take the pending request.
+     *
+     * @return true if the requested state differs from the target state, i.e. the
+     *         requests did not cancel each other out
+     */
+    public boolean takeRequest() {
+        if (mRequest == NO_REQUEST) {
+            return false;
+        }
+
+        boolean isFullscreen = mRequest == 1;
+        mRequest = NO_REQUEST;
+
+        return isFullscreen != isFullscreen();
+    }
+
+    /**
+     * Drop a pending request, e.g. if the state is changed directly.
+     */
+    public void cancelRequest() {
+        mRequest = NO_REQUEST;
+    }
+
+    public boolean hasRequest() {
+        return mRequest != NO_REQUEST;
+    }
+
+    /**
+     * @return the pending request if any, the target state otherwise
+     */
+    public boolean isFullscreenRequested() {
+        return mRequest != NO_REQUEST ? mRequest == 1 : isFullscreen();
+    }
+
+    /**
+     * Change the target state. A running transition is heading to the new target
+     * afterwards, otherwise the state changes instantly or starts a transition.
+     */
+    public void setFullscreen(boolean isFullscreen, boolean animated) {
+        if (isTransitioning() || animated) {
+            mState = isFullscreen ? STATE_ENTERING : STATE_EXITING;
+        } else {
+            mState = isFullscreen ? STATE_FULLSCREEN : STATE_EMBEDDED;
+        }
+    }
+
+    /**
+     * Settle a running transition in its target state.
+     */
+    public void finishTransition() {
+        if (mState == STATE_ENTERING) {
+            mState = STATE_FULLSCREEN;
+        } else if (mState == STATE_EXITING) {
+            mState = STATE_EMBEDDED;
+        }
+    }
+
+    /**
+     * @return true if fullscreen is the current or target state
+     */
+    public boolean isFullscreen() {
+        return mState == STATE_FULLSCREEN || mState == STATE_ENTERING;
+    }
+
+    public boolean isTransitioning() {
+        return mState == STATE_ENTERING || mState == STATE_EXITING;
+    }
+
+    public int getState() {
+        return mState;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+/**
+ * Window insets as seen by the layout. The instance is owned by the layout and updated
+ * in place on every insets dispatch, so no insets are allocated or retained.
+ * <p/>
+ * Reported insets are cached per display rotation and fullscreen state. Selecting another
+ * rotation, e.g. on a configuration change, restores its insets right away, before the
+ * system dispatches them again.
+ */
+public final class InsetState {
+
+    public static final int ROTATION_0   = 0;
+    public static final int ROTATION_90  = 1;
+    public static final int ROTATION_180 = 2;
+    public static final int ROTATION_270 = 3;
+
+    private static final int SLOT_COUNT = 4 * 2;
+
+    // Left, top, right and bottom per rotation and fullscreen state
+    private final int[]     mCache = new int[SLOT_COUNT * 4];
+    private final boolean[] mIsCached = new boolean[SLOT_COUNT];
+    private int mSlot;
+
+    private int mLeft;
+    private int mTop;
+    private int mRight;
+    private int mBottom;
+
+    private boolean mIsSet;
+
+    /**
+     * Update insets with values reported by the system.
+     *
+     * @return true if any value changed
+     */
+    public boolean update(int left, int top, int right, int bottom) {
+        cache(left, top, right, bottom);
+
+        if (mIsSet && mLeft == left && mTop == top && mRight == right && mBottom == bottom) {
+            return false;
+        }
+
+        mIsSet = true;
+        set(left, top, right, bottom);
+
+        return true;
+    }
+
+    /**
+     * Select the rotation and fullscreen state the next reported insets belong to, and
+     * restore the insets cached for them.
+     *
+     * @param rotation one of the {@code ROTATION_} constants
+     * @return true if cached insets were restored and differ from the current ones
+     */
+    public boolean select(int rotation, boolean isFullscreen) {
+        if (rotation < ROTATION_0 || rotation > ROTATION_270) {
+            throw new IllegalArgumentException("Unknown rotation: " + rotation);
+        }
+
+        mSlot = rotation * 2 + (isFullscreen ? 1 : 0);
+
+        if (!mIsCached[mSlot]) {
+            return false;
+        }
+
+        int offset = mSlot * 4;
+
+        if (mIsSet
+                && mLeft == mCache[offset]
+                && mTop == mCache[offset + 1]
+                && mRight == mCache[offset + 2]
+                && mBottom == mCache[offset + 3]) {
+            return false;
+        }
+
+        mIsSet = true;
+        set(mCache[offset], mCache[offset + 1], mCache[offset + 2], mCache[offset + 3]);
+
+        return true;
+    }
+
+    public boolean isSet() {
+        return mIsSet;
+    }
+
+    /**
+     * The container fits the system UI, unless it is in fullscreen.
+     *
+     * @param outPadding left, top, right and bottom padding
+     */
+    public void getContainerPadding(boolean isFullscreen, int[] outPadding) {
+        if (isFullscreen) {
+            // Use full screen
+            setPadding(outPadding, 0, 0, 0, 0);
+        } else {
+            // Fits system UI
+            setPadding(outPadding, mLeft, mTop, mRight, mBottom);
+        }
+    }
+
+    /**
+     * Children which fit system windows fit the system UI in fullscreen only,
+     * otherwise the container already does.
+     *
+     * @param outPadding left, top, right and bottom padding
+     */
+    public void getChildPadding(boolean isFullscreen, int[] outPadding) {
+        if (isFullscreen) {
+            // Fits system UI in fullscreen mode
+            setPadding(outPadding, mLeft, mTop, mRight, mBottom);
+        } else {
+            // Reset
+            setPadding(outPadding, 0, 0, 0, 0);
+        }
+    }
+
+    /* Helpers */
+
+    private void cache(int left, int top, int right, int bottom) {
+        int offset = mSlot * 4;
+
+        mCache[offset]     = left;
+        mCache[offset + 1] = top;
+        mCache[offset + 2] = right;
+        mCache[offset + 3] = bottom;
+        mIsCached[mSlot]   = true;
+    }
+
+    private void set(int left, int top, int right, int bottom) {
+        mLeft = left;
+        mTop = top;
+        mRight = right;
+        mBottom = bottom;
+    }
+
+    private static void setPadding(int[] outPadding, int left, int top, int right, int bottom) {
+        outPadding[0] = left;
+        outPadding[1] = top;
+        outPadding[2] = right;
+        outPadding[3] = bottom;
+    }
+}
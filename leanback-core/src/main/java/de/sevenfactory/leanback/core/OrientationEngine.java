@@ -0,0 +1,185 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+/**
+ * Derives a stable device orientation from gravity samples.
+ * <p/>
+ * Samples are smoothed by a low-pass filter, the current orientation is only left once
+ * the tilt angle is beyond the quadrant border plus a hysteresis band, and a new
+ * orientation has to persist for a dwell time before it is reported.
+ */
+public final class OrientationEngine {
+
+    public static final int ORIENTATION_UNKNOWN           = -1;
+    public static final int ORIENTATION_PORTRAIT          = 0;
+    public static final int ORIENTATION_LANDSCAPE         = 1;
+    public static final int ORIENTATION_REVERSE_PORTRAIT  = 2;
+    public static final int ORIENTATION_REVERSE_LANDSCAPE = 3;
+
+    // Defaults
+    public static final long  DEFAULT_FILTER_TIME_CONSTANT_MILLIS = 100;
+    public static final float DEFAULT_HYSTERESIS_DEGREES          = 15f;
+    public static final long  DEFAULT_DWELL_TIME_MILLIS           = 300;
+
+    // Minimal tilt (normalized gravity in the screen plane) to rotate at all
+    static final float MIN_ROTATION = 0.8f;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private long  mFilterTimeConstantNanos = DEFAULT_FILTER_TIME_CONSTANT_MILLIS * NANOS_PER_MILLI;
+    private float mHysteresisDegrees       = DEFAULT_HYSTERESIS_DEGREES;
+    private long  mDwellTimeNanos          = DEFAULT_DWELL_TIME_MILLIS * NANOS_PER_MILLI;
+
+    // Filter state
+    private boolean mHasSample;
+    private float   mFilteredX;
+    private float   mFilteredY;
+    private long    mLastTimestamp;
+
+    // Orientation state
+    private int  mOrientation = ORIENTATION_UNKNOWN;
+    private int  mCandidate   = ORIENTATION_UNKNOWN;
+    private long mCandidateSince;
+
+    /* Configuration */
+
+    /**
+     * Time constant of the low-pass filter, 0 disables filtering.
+     */
+    public void setFilterTimeConstant(long millis) {
+        mFilterTimeConstantNanos = millis * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Angle beyond the 45 degree border a tilt has to reach to leave the current orientation.
+     */
+    public void setHysteresis(float degrees) {
+        if (degrees < 0 || degrees >= 45) {
+            throw new IllegalArgumentException("Hysteresis has to be within [0, 45) degrees: " + degrees);
+        }
+
+        mHysteresisDegrees = degrees;
+    }
+
+    /**
+     * Time a new orientation has to be stable before it is reported.
+     */
+    public void setDwellTime(long millis) {
+        mDwellTimeNanos = millis * NANOS_PER_MILLI;
+    }
+
+    /* Samples */
+
+    /**
+     * Feed a gravity sample normalized to earth gravity.
+     *
+     * @return true if the stable orientation changed with this sample
+     */
+    public boolean onSample(float x, float y, long timestampNanos) {
+        filter(x, y, timestampNanos);
+
+        // Rotate only on large movements
+        if (mFilteredX * mFilteredX + mFilteredY * mFilteredY < MIN_ROTATION * MIN_ROTATION) {
+            mCandidate = ORIENTATION_UNKNOWN;
+            return false;
+        }
+
+        int candidate = classify(mFilteredX, mFilteredY, mOrientation, mHysteresisDegrees);
+
+        if (candidate == mOrientation) {
+            mCandidate = ORIENTATION_UNKNOWN;
+            return false;
+        }
+
+        if (candidate != mCandidate) {
+            mCandidate = candidate;
+            mCandidateSince = timestampNanos;
+        }
+
+        if (timestampNanos - mCandidateSince < mDwellTimeNanos) {
+            return false;
+        }
+
+        mOrientation = candidate;
+        mCandidate = ORIENTATION_UNKNOWN;
+
+        return true;
+    }
+
+    public int getOrientation() {
+        return mOrientation;
+    }
+
+    /**
+     * Forget filter and dwell state, e.g. after sensor updates were paused.
+     */
+    public void reset() {
+        mHasSample = false;
+        mCandidate = ORIENTATION_UNKNOWN;
+    }
+
+    /**
+     * Returns the orientation for given x,y gravity parameters. The current orientation
+     * is kept as long as the tilt angle stays within its quadrant widened by the hysteresis.
+     */
+    public static int classify(float x, float y, int current, float hysteresisDegrees) {
+        // 0 degrees is portrait, 90 landscape, 180 reverse portrait and 270 reverse landscape
+        double angle = Math.toDegrees(Math.atan2(x, y));
+
+        if (current != ORIENTATION_UNKNOWN) {
+            double distance = ((angle - current * 90) % 360 + 360) % 360;
+
+            if (distance > 180) {
+                distance = 360 - distance;
+            }
+
+            if (distance <= 45 + hysteresisDegrees) {
+                return current;
+            }
+        }
+
+        return ((int) Math.round(angle / 90) + 4) % 4;
+    }
+
+    /* Helpers */
+
+    private void filter(float x, float y, long timestampNanos) {
+        if (!mHasSample || mFilterTimeConstantNanos <= 0) {
+            mHasSample = true;
+            mFilteredX = x;
+            mFilteredY = y;
+        } else {
+            // Exponential smoothing, independent of the sampling rate
+            float dt = Math.max(0, timestampNanos - mLastTimestamp);
+            float alpha = dt / (mFilterTimeConstantNanos + dt);
+
+            mFilteredX += alpha * (x - mFilteredX);
+            mFilteredY += alpha * (y - mFilteredY);
+        }
+
+        mLastTimestamp = timestampNanos;
+    }
+}
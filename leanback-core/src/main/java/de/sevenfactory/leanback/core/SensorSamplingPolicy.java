@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+/**
+ * Decides how often the orientation sensor has to be sampled.
+ * <p/>
+ * While the device is still, samples are taken at a low rate and batched in the sensor
+ * hub, so the main thread is woken up rarely. Motion switches to a fast rate without
+ * batching. In fullscreen landscape the slowest rate is used.
+ */
+public final class SensorSamplingPolicy {
+
+    public static final int MODE_MOTION = 0;
+    public static final int MODE_STILL  = 1;
+    public static final int MODE_IDLE   = 2;
+
+    // Sampling periods and maximal report latencies per mode
+    private static final int[] SAMPLING_PERIOD_US    = {60000, 200000, 500000};
+    private static final int[] MAX_REPORT_LATENCY_US = {0, 1000000, 1000000};
+
+    // Deviation from the slow moving baseline (normalized gravity) which counts as motion
+    private static final float MOTION_THRESHOLD = 0.15f;
+
+    private static final long NANOS_PER_MILLI        = 1000000L;
+    private static final long BASELINE_TIME_CONSTANT = 500 * NANOS_PER_MILLI;
+    private static final long STILL_TIMEOUT          = 1000 * NANOS_PER_MILLI;
+
+    private int     mMode = MODE_MOTION;
+    private boolean mIsIdle;
+
+    // Baseline
+    private boolean mHasSample;
+    private float   mBaselineX;
+    private float   mBaselineY;
+    private long    mLastTimestamp;
+    private long    mLastMotion;
+
+    /**
+     * Feed a gravity sample normalized to earth gravity.
+     *
+     * @return true if the sampling mode changed
+     */
+    public boolean onSample(float x, float y, long timestampNanos) {
+        if (!mHasSample) {
+            mHasSample = true;
+            mBaselineX = x;
+            mBaselineY = y;
+            mLastMotion = timestampNanos;
+        } else {
+            float dt = Math.max(0, timestampNanos - mLastTimestamp);
+            float alpha = dt / (BASELINE_TIME_CONSTANT + dt);
+
+            mBaselineX += alpha * (x - mBaselineX);
+            mBaselineY += alpha * (y - mBaselineY);
+
+            if (Math.abs(x - mBaselineX) + Math.abs(y - mBaselineY) > MOTION_THRESHOLD) {
+                mLastMotion = timestampNanos;
+            }
+        }
+
+        mLastTimestamp = timestampNanos;
+
+        return updateMode(timestampNanos - mLastMotion < STILL_TIMEOUT);
+    }
+
+    /**
+     * Idle mode, i.e. fullscreen landscape, takes precedence over motion.
+     *
+     * @return true if the sampling mode changed
+     */
+    public boolean setIdle(boolean isIdle) {
+        mIsIdle = isIdle;
+
+        return updateMode(mMode == MODE_MOTION);
+    }
+
+    /**
+     * Start over in motion mode, e.g. after sensor updates were paused.
+     */
+    public void reset() {
+        mHasSample = false;
+        mMode = mIsIdle ? MODE_IDLE : MODE_MOTION;
+    }
+
+    public int getMode() {
+        return mMode;
+    }
+
+    public int getSamplingPeriodUs() {
+        return SAMPLING_PERIOD_US[mMode];
+    }
+
+    public int getMaxReportLatencyUs() {
+        return MAX_REPORT_LATENCY_US[mMode];
+    }
+
+    /* Helpers */
+
+    private boolean updateMode(boolean isMoving) {
+        int mode;
+
+        if (mIsIdle) {
+            mode = MODE_IDLE;
+        } else if (isMoving) {
+            mode = MODE_MOTION;
+        } else {
+            mode = MODE_STILL;
+        }
+
+        if (mode == mMode) {
+            return false;
+        }
+
+        mMode = mode;
+
+        return true;
+    }
+}
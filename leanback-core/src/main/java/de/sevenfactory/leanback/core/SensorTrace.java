@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A recorded stream of gravity or accelerometer samples, as delivered by the sensor.
+ * <p/>
+ * Traces are plain text, one sample per line with the timestamp in nanoseconds followed
+ * by the x, y and z values in m/s^2. Lines starting with {@code #} are comments, except
+ * for the header which names the source:
+ * <pre>
+ * # leanback sensor trace 1
+ * # source gravity
+ * 81513424311000 0.0612 9.7913 0.4901
+ * </pre>
+ *
+ * @see SensorTraceWriter
+ */
+public final class SensorTrace {
+
+    public static final String SOURCE_GRAVITY       = "gravity";
+    public static final String SOURCE_ACCELEROMETER = "accelerometer";
+
+    /** Standard gravity in m/s^2, used to normalize samples. */
+    public static final float GRAVITY_EARTH = 9.80665f;
+
+    static final String HEADER        = "# leanback sensor trace 1";
+    static final String SOURCE_PREFIX = "# source ";
+
+    private final String mSource;
+
+    private long[]  mTimestamps = new long[64];
+    private float[] mValues     = new float[64 * 3];
+    private int     mSize;
+
+    public SensorTrace(String source) {
+        mSource = source;
+    }
+
+    /**
+     * Parse a trace, the reader is not closed.
+     *
+     * @throws IOException if the trace can't be read or is malformed
+     */
+    public static SensorTrace read(Reader reader) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+
+        String line = in.readLine();
+
+        if (!HEADER.equals(line)) {
+            throw new IOException("Not a sensor trace, header missing: " + line);
+        }
+
+        line = in.readLine();
+
+        if (line == null || !line.startsWith(SOURCE_PREFIX)) {
+            throw new IOException("Source of the sensor trace missing: " + line);
+        }
+
+        SensorTrace trace = new SensorTrace(line.substring(SOURCE_PREFIX.length()).trim());
+
+        for (int number = 3; (line = in.readLine()) != null; number++) {
+            line = line.trim();
+
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.split("\\s+");
+
+            if (fields.length != 4) {
+                throw new IOException("Line " + number + ": expected timestamp, x, y and z: " + line);
+            }
+
+            try {
+                trace.add(Long.parseLong(fields[0]), Float.parseFloat(fields[1]), Float.parseFloat(fields[2]), Float.parseFloat(fields[3]));
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + number + ": " + e.getMessage(), e);
+            }
+        }
+
+        return trace;
+    }
+
+    public void add(long timestampNanos, float x, float y, float z) {
+        if (mSize == mTimestamps.length) {
+            mTimestamps = Arrays.copyOf(mTimestamps, mSize * 2);
+            mValues     = Arrays.copyOf(mValues, mSize * 2 * 3);
+        }
+
+        mTimestamps[mSize] = timestampNanos;
+        mValues[mSize * 3]     = x;
+        mValues[mSize * 3 + 1] = y;
+        mValues[mSize * 3 + 2] = z;
+        mSize++;
+    }
+
+    /**
+     * @return one of {@link #SOURCE_GRAVITY} and {@link #SOURCE_ACCELEROMETER}
+     */
+    public String getSource() {
+        return mSource;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public long getTimestamp(int index) {
+        return mTimestamps[index];
+    }
+
+    public float getX(int index) {
+        return mValues[index * 3];
+    }
+
+    public float getY(int index) {
+        return mValues[index * 3 + 1];
+    }
+
+    public float getZ(int index) {
+        return mValues[index * 3 + 2];
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes samples in the format read by {@link SensorTrace#read(java.io.Reader)}.
+ * Nothing is buffered here, wrap the writer if needed.
+ */
+public final class SensorTraceWriter implements Closeable {
+
+    private final Writer        mWriter;
+    private final StringBuilder mLine = new StringBuilder(64);
+
+    /**
+     * @param source one of {@link SensorTrace#SOURCE_GRAVITY} and {@link SensorTrace#SOURCE_ACCELEROMETER}
+     */
+    public SensorTraceWriter(Writer writer, String source) throws IOException {
+        mWriter = writer;
+
+        mWriter.write(SensorTrace.HEADER);
+        mWriter.write('\n');
+        mWriter.write(SensorTrace.SOURCE_PREFIX);
+        mWriter.write(source);
+        mWriter.write('\n');
+    }
+
+    public void write(long timestampNanos, float x, float y, float z) throws IOException {
+        mLine.setLength(0);
+        mLine.append(timestampNanos).append(' ')
+             .append(x).append(' ')
+             .append(y).append(' ')
+             .append(z).append('\n');
+
+        mWriter.append(mLine);
+    }
+
+    public void write(SensorTrace trace) throws IOException {
+        for (int i = 0; i < trace.size(); i++) {
+            write(trace.getTimestamp(i), trace.getX(i), trace.getY(i), trace.getZ(i));
+        }
+    }
+
+    public void flush() throws IOException {
+        mWriter.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mWriter.close();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+/**
+ * System UI visibility flags. The values equal
+ * the {@code View.SYSTEM_UI_FLAG_*} constants of the Android framework.
+ */
+public final class SystemUiFlags {
+
+    // Framework flags
+    public static final int FLAG_HIDE_NAVIGATION        = 0x00000002;   // View.SYSTEM_UI_FLAG_HIDE_NAVIGATION
+    public static final int FLAG_FULLSCREEN             = 0x00000004;   // View.SYSTEM_UI_FLAG_FULLSCREEN
+    public static final int FLAG_LAYOUT_STABLE          = 0x00000100;   // View.SYSTEM_UI_FLAG_LAYOUT_STABLE
+    public static final int FLAG_LAYOUT_HIDE_NAVIGATION = 0x00000200;   // View.SYSTEM_UI_FLAG_LAYOUT_HIDE_NAVIGATION
+    public static final int FLAG_LAYOUT_FULLSCREEN      = 0x00000400;   // View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN
+    public static final int FLAG_IMMERSIVE_STICKY       = 0x00001000;   // View.SYSTEM_UI_FLAG_IMMERSIVE_STICKY, API 19+
+
+    // System UI visibility flags
+    public static final int SHOW = FLAG_LAYOUT_STABLE           // Stay stable during layout changes
+            | FLAG_LAYOUT_HIDE_NAVIGATION                       // Recalc layout  on navigation bar changes
+            | FLAG_LAYOUT_FULLSCREEN;                           // Recalc layout  on system UI changes
+
+    public static final int HIDE = FLAG_LAYOUT_STABLE           // Stay stable during layout changes
+            | FLAG_LAYOUT_HIDE_NAVIGATION                       // Recalc layout on navigation bar changes
+            | FLAG_LAYOUT_FULLSCREEN                            // Recalc layout on system UI changes
+            | FLAG_FULLSCREEN                                   // Hide System UI
+            | FLAG_HIDE_NAVIGATION;                             // Hide navgation bar
+
+    public static final int HIDE_IMMERSIVE_STICKY = HIDE
+            | FLAG_IMMERSIVE_STICKY;                            // Reveal system UI transiently on top of the content
+
+    private SystemUiFlags() {
+        // No instances
+    }
+
+    /**
+     * @return flags to request for the given visibility
+     */
+    public static int flags(boolean show, boolean immersiveSticky) {
+        if (show) {
+            return SHOW;
+        }
+
+        return immersiveSticky ? HIDE_IMMERSIVE_STICKY : HIDE;
+    }
+
+    /**
+     * @return true if the system UI is visible with the given visibility flags
+     */
+    public static boolean isVisible(int visibility) {
+        return (visibility & FLAG_FULLSCREEN) == 0;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+/**
+ * Tracks requested and confirmed system UI flags. Requests for flags which are already
+ * requested or confirmed are skipped, and visibility changes which only confirm an own
+ * request are told apart from changes caused by the user or the system.
+ * <p/>
+ * A request superseded before its echo arrived stays in flight, so its late echo is not
+ * mistaken for a change by the user. Echoes arrive in order, the echo of the latest
+ * request settles all earlier ones.
+ */
+public final class SystemUiState {
+
+    // Flags which decide about the visibility, layout flags are not reported back reliably
+    private static final int VISIBILITY_MASK = SystemUiFlags.FLAG_FULLSCREEN | SystemUiFlags.FLAG_HIDE_NAVIGATION;
+
+    private static final int UNKNOWN = -1;
+
+    private int     mRequestedFlags      = UNKNOWN;
+    private int     mConfirmedVisibility = UNKNOWN;
+    private boolean mIsPending;
+
+    // Superseded request still waiting for its echo
+    private int     mSupersededFlags = UNKNOWN;
+
+    /**
+     * @return true if the flags have to be applied, false if they are already
+     *         requested or in place
+     */
+    public boolean request(int flags) {
+        if (flags == mRequestedFlags && (mIsPending || matches(mConfirmedVisibility, flags))) {
+            return false;
+        }
+
+        if (mIsPending && !matches(mRequestedFlags, flags)) {
+            // The echo of the former request may still arrive
+            mSupersededFlags = mRequestedFlags;
+        }
+
+        mRequestedFlags = flags;
+        mIsPending = true;
+
+        return true;
+    }
+
+    /**
+     * Handle a visibility change reported by the system.
+     *
+     * @return true if the change is the echo of an own request, either of the pending
+     *         one, see {@link #isPending()}, or of a superseded one
+     */
+    public boolean onVisibilityChange(int visibility) {
+        mConfirmedVisibility = visibility;
+
+        if (mIsPending && matches(visibility, mRequestedFlags)) {
+            mIsPending = false;
+            mSupersededFlags = UNKNOWN;
+            return true;
+        }
+
+        if (mIsPending && matches(visibility, mSupersededFlags)) {
+            // Late echo, the pending request is still to be confirmed
+            mSupersededFlags = UNKNOWN;
+            return true;
+        }
+
+        return false;
+    }
+
+    public boolean isPending() {
+        return mIsPending;
+    }
+
+    public int getRequestedFlags() {
+        return mRequestedFlags;
+    }
+
+    /* Helpers */
+
+    private static boolean matches(int visibility, int flags) {
+        return visibility != UNKNOWN && flags != UNKNOWN && ((visibility ^ flags) & VISIBILITY_MASK) == 0;
+    }
+}
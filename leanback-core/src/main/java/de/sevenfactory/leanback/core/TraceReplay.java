@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+import java.util.Arrays;
+
+/**
+ * Feeds a {@link SensorTrace} through an {@link OrientationEngine} as fast as possible
+ * and reports every orientation change with its decision latency.
+ * <p/>
+ * The decision latency of a change is the time since the unfiltered samples started to
+ * show the new orientation, i.e. the delay added by filter, hysteresis and dwell time.
+ */
+public final class TraceReplay {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final OrientationEngine mEngine;
+
+    public TraceReplay(OrientationEngine engine) {
+        mEngine = engine;
+    }
+
+    /**
+     * Replay the trace from a reset engine.
+     */
+    public Result replay(SensorTrace trace) {
+        Result result = new Result();
+
+        if (trace.size() == 0) {
+            return result;
+        }
+
+        mEngine.reset();
+
+        long start = trace.getTimestamp(0);
+
+        // Start of the latest run of unfiltered samples per orientation
+        long[] runStart = new long[4];
+        int    raw      = OrientationEngine.ORIENTATION_UNKNOWN;
+
+        for (int i = 0; i < trace.size(); i++) {
+            long  timestamp = trace.getTimestamp(i);
+            float x = trace.getX(i) / SensorTrace.GRAVITY_EARTH;
+            float y = trace.getY(i) / SensorTrace.GRAVITY_EARTH;
+
+            int sampleOrientation = classify(x, y);
+
+            if (sampleOrientation != raw) {
+                raw = sampleOrientation;
+
+                if (raw != OrientationEngine.ORIENTATION_UNKNOWN) {
+                    runStart[raw] = timestamp;
+                }
+            }
+
+            if (mEngine.onSample(x, y, timestamp)) {
+                int orientation = mEngine.getOrientation();
+                long latency = raw == orientation ? timestamp - runStart[orientation] : 0;
+
+                result.add(orientation, timestamp - start, latency);
+            }
+        }
+
+        return result;
+    }
+
+    private static int classify(float x, float y) {
+        if (x * x + y * y < OrientationEngine.MIN_ROTATION * OrientationEngine.MIN_ROTATION) {
+            return OrientationEngine.ORIENTATION_UNKNOWN;
+        }
+
+        return OrientationEngine.classify(x, y, OrientationEngine.ORIENTATION_UNKNOWN, 0);
+    }
+
+    /**
+     * Orientation changes of a replayed trace.
+     */
+    public static final class Result {
+
+        private int[]  mOrientations = new int[8];
+        private long[] mTimes        = new long[8];
+        private long[] mLatencies    = new long[8];
+        private int    mCount;
+
+        private void add(int orientation, long timeNanos, long latencyNanos) {
+            if (mCount == mOrientations.length) {
+                mOrientations = Arrays.copyOf(mOrientations, mCount * 2);
+                mTimes        = Arrays.copyOf(mTimes, mCount * 2);
+                mLatencies    = Arrays.copyOf(mLatencies, mCount * 2);
+            }
+
+            mOrientations[mCount] = orientation;
+            mTimes[mCount]        = timeNanos;
+            mLatencies[mCount]    = latencyNanos;
+            mCount++;
+        }
+
+        public int getChangeCount() {
+            return mCount;
+        }
+
+        /**
+         * @return one of the {@code ORIENTATION_} constants of {@link OrientationEngine}
+         */
+        public int getOrientation(int index) {
+            return mOrientations[index];
+        }
+
+        /**
+         * @return time of the change since the first sample of the trace
+         */
+        public long getTimeNanos(int index) {
+            return mTimes[index];
+        }
+
+        public long getLatencyNanos(int index) {
+            return mLatencies[index];
+        }
+
+        public long getMaxLatencyNanos() {
+            long max = 0;
+
+            for (int i = 0; i < mCount; i++) {
+                max = Math.max(max, mLatencies[i]);
+            }
+
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("Result{changes=").append(mCount);
+
+            for (int i = 0; i < mCount; i++) {
+                builder.append(", ").append(mOrientations[i])
+                       .append("@").append(mTimes[i] / NANOS_PER_MILLI).append("ms")
+                       .append("+").append(mLatencies[i] / NANOS_PER_MILLI).append("ms");
+            }
+
+            return builder.append('}').toString();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+import java.util.ArrayList;
+
+/**
+ * Arbitrates system UI visibility requests of several clients of a window, e.g. a player,
+ * dialogs and overlays. A request for visible system UI wins over requests to hide it,
+ * and without any request the system UI is visible. Clients are compared by identity.
+ */
+public final class VisibilityArbiter {
+
+    private final ArrayList<Object> mVisibleRequests = new ArrayList<>();
+    private final ArrayList<Object> mHiddenRequests  = new ArrayList<>();
+
+    /**
+     * Replace the request of the client.
+     *
+     * @return true if the arbitrated visibility changed
+     */
+    public boolean request(Object client, boolean visible) {
+        boolean wasVisible = isVisible();
+
+        remove(mVisibleRequests, client);
+        remove(mHiddenRequests, client);
+        (visible ? mVisibleRequests : mHiddenRequests).add(client);
+
+        return wasVisible != isVisible();
+    }
+
+    /**
+     * Drop the request of the client, if any.
+     *
+     * @return true if the arbitrated visibility changed
+     */
+    public boolean clear(Object client) {
+        boolean wasVisible = isVisible();
+
+        remove(mVisibleRequests, client);
+        remove(mHiddenRequests, client);
+
+        return wasVisible != isVisible();
+    }
+
+    public boolean isVisible() {
+        return !mVisibleRequests.isEmpty() || mHiddenRequests.isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return mVisibleRequests.isEmpty() && mHiddenRequests.isEmpty();
+    }
+
+    public boolean hasRequest(Object client) {
+        return indexOf(mVisibleRequests, client) >= 0 || indexOf(mHiddenRequests, client) >= 0;
+    }
+
+    /**
+     * Add the requests of all clients of this arbiter to the target, replacing their former
+     * requests there, e.g. to hand requests over to a new owner.
+     *
+     * @return true if the arbitrated visibility of the target changed
+     */
+    public boolean copyTo(VisibilityArbiter target) {
+        boolean wasVisible = target.isVisible();
+
+        for (int i = 0, size = mVisibleRequests.size(); i < size; i++) {
+            target.request(mVisibleRequests.get(i), true);
+        }
+
+        for (int i = 0, size = mHiddenRequests.size(); i < size; i++) {
+            target.request(mHiddenRequests.get(i), false);
+        }
+
+        return wasVisible != target.isVisible();
+    }
+
+    /**
+     * Drop the requests of all clients of this arbiter from the target.
+     *
+     * @return true if the arbitrated visibility of the target changed
+     */
+    public boolean removeFrom(VisibilityArbiter target) {
+        boolean wasVisible = target.isVisible();
+
+        for (int i = 0, size = mVisibleRequests.size(); i < size; i++) {
+            target.clear(mVisibleRequests.get(i));
+        }
+
+        for (int i = 0, size = mHiddenRequests.size(); i < size; i++) {
+            target.clear(mHiddenRequests.get(i));
+        }
+
+        return wasVisible != target.isVisible();
+    }
+
+    /* Helpers */
+
+    private static void remove(ArrayList<Object> requests, Object client) {
+        int index = indexOf(requests, client);
+
+        if (index >= 0) {
+            requests.remove(index);
+        }
+    }
+
+    private static int indexOf(ArrayList<Object> requests, Object client) {
+        for (int i = 0, size = requests.size(); i < size; i++) {
+            if (requests.get(i) == client) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
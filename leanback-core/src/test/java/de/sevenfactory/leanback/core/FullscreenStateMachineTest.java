@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FullscreenStateMachineTest {
+
+    private FullscreenStateMachine mState;
+
+    @Before
+    public void setUp() {
+        mState = new FullscreenStateMachine();
+    }
+
+    @Test
+    public void requestForCurrentStateIsNoOp() {
+        assertFalse(mState.request(false));
+        assertFalse(mState.hasRequest());
+    }
+
+    @Test
+    public void firstRequestIsScheduled() {
+        assertTrue(mState.request(true));
+        assertFalse(mState.request(true));
+        assertTrue(mState.isFullscreenRequested());
+        assertFalse(mState.isFullscreen());
+
+        assertTrue(mState.takeRequest());
+        assertFalse(mState.hasRequest());
+    }
+
+    @Test
+    public void opposingRequestsCancelOut() {
+        mState.request(true);
+        mState.request(false);
+
+        assertFalse(mState.isFullscreenRequested());
+        assertFalse(mState.takeRequest());
+    }
+
+    @Test
+    public void lastRequestWins() {
+        mState.request(true);
+        mState.request(false);
+        mState.request(true);
+
+        assertTrue(mState.takeRequest());
+    }
+
+    @Test
+    public void requestAgainstRunningTransition() {
+        mState.setFullscreen(true, true);
+        assertEquals(FullscreenStateMachine.STATE_ENTERING, mState.getState());
+
+        // Heading to fullscreen already
+        assertFalse(mState.request(true));
+
+        // Reverses the transition
+        assertTrue(mState.request(false));
+        assertTrue(mState.takeRequest());
+        mState.setFullscreen(false, true);
+        assertEquals(FullscreenStateMachine.STATE_EXITING, mState.getState());
+
+        mState.finishTransition();
+        assertEquals(FullscreenStateMachine.STATE_EMBEDDED, mState.getState());
+    }
+
+    @Test
+    public void cancelledRequestIsDropped() {
+        mState.request(true);
+        mState.cancelRequest();
+
+        assertFalse(mState.takeRequest());
+        assertFalse(mState.isFullscreenRequested());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InsetStateTest {
+
+    private InsetState mInsets;
+    private int[]      mPadding;
+
+    @Before
+    public void setUp() {
+        mInsets  = new InsetState();
+        mPadding = new int[4];
+    }
+
+    @Test
+    public void repeatedInsetsAreNoChange() {
+        assertTrue(mInsets.update(0, 60, 0, 96));
+        assertFalse(mInsets.update(0, 60, 0, 96));
+    }
+
+    @Test
+    public void unknownRotationKeepsInsets() {
+        mInsets.update(0, 60, 0, 96);
+
+        assertFalse(mInsets.select(InsetState.ROTATION_90, false));
+        assertPadding(0, 60, 0, 96);
+    }
+
+    @Test
+    public void cachedRotationIsRestored() {
+        // Portrait with the navigation bar at the bottom
+        mInsets.update(0, 60, 0, 96);
+
+        // Landscape with the navigation bar at the right
+        mInsets.select(InsetState.ROTATION_90, false);
+        mInsets.update(0, 48, 96, 0);
+
+        // Back to portrait, before the system dispatches the insets
+        assertTrue(mInsets.select(InsetState.ROTATION_0, false));
+        assertPadding(0, 60, 0, 96);
+
+        // The dispatch confirms the cached insets
+        assertFalse(mInsets.update(0, 60, 0, 96));
+
+        assertTrue(mInsets.select(InsetState.ROTATION_90, false));
+        assertPadding(0, 48, 96, 0);
+    }
+
+    @Test
+    public void differingDispatchFixesUpCachedInsets() {
+        mInsets.update(0, 60, 0, 96);
+        mInsets.select(InsetState.ROTATION_90, false);
+        mInsets.update(0, 48, 96, 0);
+        mInsets.select(InsetState.ROTATION_0, false);
+
+        assertTrue(mInsets.update(0, 72, 0, 96));
+        assertPadding(0, 72, 0, 96);
+
+        mInsets.select(InsetState.ROTATION_90, false);
+        assertTrue(mInsets.select(InsetState.ROTATION_0, false));
+        assertPadding(0, 72, 0, 96);
+    }
+
+    @Test
+    public void fullscreenStateIsCachedSeparately() {
+        mInsets.update(0, 60, 0, 96);
+        mInsets.select(InsetState.ROTATION_0, true);
+        mInsets.update(0, 0, 0, 0);
+
+        assertTrue(mInsets.select(InsetState.ROTATION_0, false));
+        assertPadding(0, 60, 0, 96);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRotationIsRejected() {
+        mInsets.select(4, false);
+    }
+
+    /* Helpers */
+
+    private void assertPadding(int left, int top, int right, int bottom) {
+        mInsets.getContainerPadding(false, mPadding);
+
+        assertEquals(left, mPadding[0]);
+        assertEquals(top, mPadding[1]);
+        assertEquals(right, mPadding[2]);
+        assertEquals(bottom, mPadding[3]);
+    }
+}
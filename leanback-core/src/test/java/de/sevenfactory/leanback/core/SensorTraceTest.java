@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+public class SensorTraceTest {
+
+    @Test
+    public void writtenTraceIsReadBack() throws IOException {
+        StringWriter out = new StringWriter();
+        SensorTraceWriter writer = new SensorTraceWriter(out, SensorTrace.SOURCE_ACCELEROMETER);
+        writer.write(1000L, 0.5f, 9.75f, -0.25f);
+        writer.write(21000L, -1.5f, 9.5f, 0.125f);
+        writer.close();
+
+        SensorTrace trace = SensorTrace.read(new StringReader(out.toString()));
+
+        assertEquals(SensorTrace.SOURCE_ACCELEROMETER, trace.getSource());
+        assertEquals(2, trace.size());
+        assertEquals(21000L, trace.getTimestamp(1));
+        assertEquals(-1.5f, trace.getX(1), 0f);
+        assertEquals(9.5f, trace.getY(1), 0f);
+        assertEquals(0.125f, trace.getZ(1), 0f);
+    }
+
+    @Test
+    public void commentsAndBlankLinesAreSkipped() throws IOException {
+        String text = SensorTrace.HEADER + "\n# source gravity\n\n# picked up\n1 0 9.8 0\n";
+
+        assertEquals(1, SensorTrace.read(new StringReader(text)).size());
+    }
+
+    @Test(expected = IOException.class)
+    public void missingHeaderIsRejected() throws IOException {
+        SensorTrace.read(new StringReader("1 0 9.8 0\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void malformedSampleIsRejected() throws IOException {
+        SensorTrace.read(new StringReader(SensorTrace.HEADER + "\n# source gravity\n1 0 9.8\n"));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SystemUiStateTest {
+
+    private static final int HIDE = SystemUiFlags.HIDE;
+    private static final int SHOW = SystemUiFlags.SHOW;
+
+    private SystemUiState mState;
+
+    @Before
+    public void setUp() {
+        mState = new SystemUiState();
+    }
+
+    @Test
+    public void echoConfirmsRequest() {
+        assertTrue(mState.request(HIDE));
+        assertTrue(mState.isPending());
+
+        assertTrue(mState.onVisibilityChange(HIDE));
+        assertFalse(mState.isPending());
+    }
+
+    @Test
+    public void layoutFlagsAreIgnored() {
+        mState.request(HIDE);
+
+        assertTrue(mState.onVisibilityChange(SystemUiFlags.FLAG_FULLSCREEN | SystemUiFlags.FLAG_HIDE_NAVIGATION));
+        assertFalse(mState.isPending());
+    }
+
+    @Test
+    public void requestedOrConfirmedFlagsAreSkipped() {
+        mState.request(HIDE);
+        assertFalse(mState.request(HIDE));
+
+        mState.onVisibilityChange(HIDE);
+        assertFalse(mState.request(HIDE));
+        assertTrue(mState.request(SHOW));
+    }
+
+    @Test
+    public void lateEchoOfSupersededRequestIsNoUserChange() {
+        mState.request(HIDE);
+        mState.request(SHOW);
+
+        // Late echo, the latest request is still pending
+        assertTrue(mState.onVisibilityChange(HIDE));
+        assertTrue(mState.isPending());
+
+        assertTrue(mState.onVisibilityChange(SHOW));
+        assertFalse(mState.isPending());
+    }
+
+    @Test
+    public void echoOfLatestRequestSettlesSupersededOnes() {
+        mState.request(HIDE);
+        mState.request(SHOW);
+
+        assertTrue(mState.onVisibilityChange(SHOW));
+        assertFalse(mState.isPending());
+
+        // No echo is expected anymore
+        assertFalse(mState.onVisibilityChange(HIDE));
+    }
+
+    @Test
+    public void requestingTheSupersededFlagsAgainKeepsOneRequest() {
+        mState.request(HIDE);
+        mState.request(SHOW);
+        mState.request(HIDE);
+
+        // The first echo is also the echo of the latest request
+        assertTrue(mState.onVisibilityChange(HIDE));
+        assertFalse(mState.isPending());
+    }
+
+    @Test
+    public void userRevealWhilePendingIsUserChange() {
+        mState.request(HIDE);
+
+        assertFalse(mState.onVisibilityChange(SHOW));
+        assertTrue(mState.isPending());
+
+        // The echo still arrives afterwards
+        assertTrue(mState.onVisibilityChange(HIDE));
+        assertFalse(mState.isPending());
+    }
+
+    @Test
+    public void userRevealAfterConfirmationIsUserChange() {
+        mState.request(HIDE);
+        mState.onVisibilityChange(HIDE);
+
+        assertFalse(mState.onVisibilityChange(SHOW));
+    }
+}
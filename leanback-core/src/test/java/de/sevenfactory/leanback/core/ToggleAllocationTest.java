@@ -0,0 +1,144 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The state a fullscreen toggle runs through, i.e. the request, the state machine, the
+ * paddings, the system UI flags and their echo, allocates nothing once warm. Measured on
+ * a plain JVM against a baseline of the measurement itself, so the budget is tight.
+ */
+public class ToggleAllocationTest {
+
+    private static final int TOGGLES = 10000;
+
+    // Noise of the measurement for the whole run, a single allocation per toggle
+    // would add at least 16 bytes per toggle
+    private static final long ALLOCATION_BUDGET = 1024;
+
+    private final FullscreenStateMachine mState    = new FullscreenStateMachine();
+    private final InsetState             mInsets   = new InsetState();
+    private final SystemUiState          mSystemUi = new SystemUiState();
+    private final VisibilityArbiter      mArbiter  = new VisibilityArbiter();
+    private final Object                 mClient   = new Object();
+    private final int[]                  mPadding  = new int[4];
+
+    @Before
+    public void setUp() {
+        mInsets.select(InsetState.ROTATION_0, false);
+        mInsets.update(0, 60, 0, 96);
+
+        // Warm up lazily created state and the JIT
+        toggle(TOGGLES);
+    }
+
+    @Test
+    public void toggleAllocatesNothing() {
+        long baseline = allocatedBytes(0);
+        long allocated = allocatedBytes(TOGGLES);
+
+        if (baseline < 0 || allocated < 0) {
+            // The JVM does not track allocations
+            return;
+        }
+
+        assertTrue((allocated - baseline) + " bytes allocated by " + TOGGLES + " toggles",
+                allocated - baseline <= ALLOCATION_BUDGET);
+    }
+
+    @Test
+    public void toggleEndsInRequestedState() {
+        toggle(1);
+        assertEquals(mState.isFullscreen(), !mArbiter.isVisible());
+
+        toggle(1);
+        assertEquals(mState.isFullscreen(), !mArbiter.isVisible());
+    }
+
+    /* Helpers */
+
+    /**
+     * @return bytes allocated by the given number of toggles, or -1 if the JVM does not
+     *         track them
+     */
+    private long allocatedBytes(int toggles) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        long id = Thread.currentThread().getId();
+
+        if (!sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+
+        long start = sunBean.getThreadAllocatedBytes(id);
+        toggle(toggles);
+
+        return sunBean.getThreadAllocatedBytes(id) - start;
+    }
+
+    /**
+     * Runs the state changes of the given number of instant toggles, as the layout and
+     * the system UI helper do.
+     */
+    private void toggle(int toggles) {
+        for (int i = 0; i < toggles; i++) {
+            boolean isFullscreen = !mState.isFullscreenRequested();
+
+            if (!mState.request(isFullscreen) || !mState.takeRequest()) {
+                continue;
+            }
+
+            mState.setFullscreen(isFullscreen, false);
+            mInsets.select(InsetState.ROTATION_0, isFullscreen);
+            mInsets.getContainerPadding(isFullscreen, mPadding);
+            mInsets.getChildPadding(isFullscreen, mPadding);
+
+            if (isFullscreen) {
+                mArbiter.request(mClient, false);
+            } else {
+                mArbiter.clear(mClient);
+            }
+
+            int flags = SystemUiFlags.flags(mArbiter.isVisible(), false);
+
+            if (mSystemUi.request(flags)) {
+                mSystemUi.onVisibilityChange(flags);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays recorded traces from {@code src/test/resources/traces} through the orientation logic.
+ */
+public class TraceReplayTest {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    // Upper bound of the delay added by filter, hysteresis and dwell time with the defaults
+    private static final long MAX_LATENCY_NANOS = 600 * NANOS_PER_MILLI;
+
+    private OrientationEngine mEngine;
+    private TraceReplay       mReplay;
+
+    @Before
+    public void setUp() {
+        mEngine = new OrientationEngine();
+        mReplay = new TraceReplay(mEngine);
+    }
+
+    @Test
+    public void stillDeviceIsReportedOnce() throws IOException {
+        TraceReplay.Result result = mReplay.replay(load("portrait_still.trace"));
+
+        assertEquals(result.toString(), 1, result.getChangeCount());
+        assertEquals(OrientationEngine.ORIENTATION_PORTRAIT, result.getOrientation(0));
+    }
+
+    @Test
+    public void rotationToLandscape() throws IOException {
+        TraceReplay.Result result = mReplay.replay(load("rotate_to_landscape.trace"));
+
+        assertEquals(result.toString(), 2, result.getChangeCount());
+        assertEquals(OrientationEngine.ORIENTATION_PORTRAIT, result.getOrientation(0));
+        assertEquals(OrientationEngine.ORIENTATION_LANDSCAPE, result.getOrientation(1));
+        assertTrue(result.toString(), result.getMaxLatencyNanos() <= MAX_LATENCY_NANOS);
+    }
+
+    @Test
+    public void wobbleAroundDiagonalDoesNotFlap() throws IOException {
+        TraceReplay.Result result = mReplay.replay(load("diagonal_wobble.trace"));
+
+        assertEquals(result.toString(), 1, result.getChangeCount());
+    }
+
+    @Test
+    public void wobbleAroundDiagonalFlapsWithoutFiltering() throws IOException {
+        mEngine.setFilterTimeConstant(0);
+        mEngine.setHysteresis(0);
+        mEngine.setDwellTime(0);
+
+        TraceReplay.Result result = mReplay.replay(load("diagonal_wobble.trace"));
+
+        assertTrue(result.toString(), result.getChangeCount() > 2);
+    }
+
+    @Test
+    public void noisyAccelerometerRotationToReverseLandscape() throws IOException {
+        SensorTrace trace = load("accelerometer_reverse_landscape.trace");
+        TraceReplay.Result result = mReplay.replay(trace);
+
+        assertEquals(SensorTrace.SOURCE_ACCELEROMETER, trace.getSource());
+        assertEquals(result.toString(), 2, result.getChangeCount());
+        assertEquals(OrientationEngine.ORIENTATION_REVERSE_LANDSCAPE, result.getOrientation(1));
+        assertTrue(result.toString(), result.getMaxLatencyNanos() <= MAX_LATENCY_NANOS);
+    }
+
+    @Test
+    public void emptyTrace() {
+        TraceReplay.Result result = mReplay.replay(new SensorTrace(SensorTrace.SOURCE_GRAVITY));
+
+        assertEquals(0, result.getChangeCount());
+    }
+
+    /* Helpers */
+
+    private static SensorTrace load(String name) throws IOException {
+        InputStream in = TraceReplayTest.class.getResourceAsStream("/traces/" + name);
+
+        if (in == null) {
+            throw new IOException("Trace not found: " + name);
+        }
+
+        Reader reader = new InputStreamReader(in, "UTF-8");
+
+        try {
+            return SensorTrace.read(reader);
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VisibilityArbiterTest {
+
+    private final Object mPlayer = new Object();
+    private final Object mDialog = new Object();
+
+    private VisibilityArbiter mArbiter;
+
+    @Before
+    public void setUp() {
+        mArbiter = new VisibilityArbiter();
+    }
+
+    @Test
+    public void visibleWithoutRequests() {
+        assertTrue(mArbiter.isVisible());
+        assertFalse(mArbiter.clear(mPlayer));
+    }
+
+    @Test
+    public void visibleRequestWins() {
+        assertTrue(mArbiter.request(mPlayer, false));
+        assertFalse(mArbiter.isVisible());
+
+        assertTrue(mArbiter.request(mDialog, true));
+        assertTrue(mArbiter.isVisible());
+
+        // Hidden again once the dialog is gone
+        assertTrue(mArbiter.clear(mDialog));
+        assertFalse(mArbiter.isVisible());
+    }
+
+    @Test
+    public void requestReplacesFormerRequestOfClient() {
+        mArbiter.request(mPlayer, false);
+        assertFalse(mArbiter.request(mPlayer, false));
+
+        assertTrue(mArbiter.request(mPlayer, true));
+        assertTrue(mArbiter.request(mPlayer, false));
+
+        // A single request of the player is left
+        assertTrue(mArbiter.clear(mPlayer));
+        assertFalse(mArbiter.hasRequest(mPlayer));
+    }
+
+    @Test
+    public void clientsAreComparedByIdentity() {
+        String client = new String("client");
+
+        mArbiter.request(client, false);
+
+        assertFalse(mArbiter.hasRequest(new String("client")));
+        assertFalse(mArbiter.clear(new String("client")));
+        assertTrue(mArbiter.hasRequest(client));
+    }
+
+    @Test
+    public void requestsAreHandedOverToNewOwner() {
+        VisibilityArbiter held = new VisibilityArbiter();
+        held.request(mPlayer, false);
+
+        // First owner, e.g. the helper of the window
+        assertTrue(held.copyTo(mArbiter));
+        assertFalse(mArbiter.isVisible());
+
+        // Released and recreated
+        assertTrue(held.removeFrom(mArbiter));
+        assertTrue(mArbiter.isVisible());
+
+        VisibilityArbiter owner = new VisibilityArbiter();
+        assertTrue(held.copyTo(owner));
+        assertFalse(owner.isVisible());
+        assertTrue(owner.hasRequest(mPlayer));
+    }
+
+    @Test
+    public void handOverKeepsRequestsOfOtherClients() {
+        VisibilityArbiter held = new VisibilityArbiter();
+        held.request(mPlayer, false);
+
+        mArbiter.request(mDialog, true);
+
+        assertFalse(held.copyTo(mArbiter));
+        assertTrue(mArbiter.isVisible());
+
+        assertFalse(held.removeFrom(mArbiter));
+        assertTrue(mArbiter.hasRequest(mDialog));
+        assertFalse(mArbiter.hasRequest(mPlayer));
+    }
+}
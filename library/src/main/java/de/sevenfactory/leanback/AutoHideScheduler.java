@@ -0,0 +1,131 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+/**
+ * Runs an action once a deadline has passed. At most one message is pending; moving the
+ * deadline to a later time does not repost it; instead the message reposts itself for
+ * the remaining time when it fires early.
+ */
+final class AutoHideScheduler implements Runnable {
+
+    private final Handler  mHandler;
+    private final Runnable mAction;
+
+    private long    mDelay;
+    private boolean mIsPending;
+    private long    mDeadline;
+    private long    mPostedFor;
+
+    AutoHideScheduler(Handler handler, Runnable action, long delayMillis) {
+        mHandler = handler;
+        mAction  = action;
+        mDelay   = delayMillis;
+    }
+
+    /* Package local */
+
+    void setDelay(long delayMillis) {
+        mDelay = delayMillis;
+    }
+
+    /**
+     * Run the action after the default delay.
+     */
+    void schedule() {
+        schedule(mDelay);
+    }
+
+    /**
+     * Run the action after the given delay, replaces a pending deadline.
+     */
+    void schedule(long delayMillis) {
+        mDeadline = SystemClock.uptimeMillis() + delayMillis;
+
+        if (LeanbackTrace.ENABLED && !mIsPending) {
+            LeanbackTrace.beginAsync(LeanbackTrace.AUTO_HIDE_DELAY, 0);
+        }
+
+        if (mIsPending && mPostedFor <= mDeadline) {
+            // The pending message reposts itself
+            return;
+        }
+
+        if (mIsPending) {
+            mHandler.removeCallbacks(this);
+        }
+
+        post(mDeadline);
+    }
+
+    /**
+     * Push a pending deadline out by the default delay, without touching the message queue.
+     */
+    void postpone() {
+        if (mIsPending) {
+            mDeadline = Math.max(mDeadline, SystemClock.uptimeMillis() + mDelay);
+        }
+    }
+
+    void cancel() {
+        if (mIsPending) {
+            mIsPending = false;
+            mHandler.removeCallbacks(this);
+
+            if (LeanbackTrace.ENABLED) {
+                LeanbackTrace.endAsync(LeanbackTrace.AUTO_HIDE_DELAY, 0);
+            }
+        }
+    }
+
+    /* Runnable */
+
+    @Override
+    public void run() {
+        mIsPending = false;
+
+        if (SystemClock.uptimeMillis() < mDeadline) {
+            // Deadline moved in the meantime
+            post(mDeadline);
+        } else {
+            if (LeanbackTrace.ENABLED) {
+                LeanbackTrace.endAsync(LeanbackTrace.AUTO_HIDE_DELAY, 0);
+            }
+
+            mAction.run();
+        }
+    }
+
+    /* Helpers */
+
+    private void post(long uptimeMillis) {
+        mIsPending = true;
+        mPostedFor = uptimeMillis;
+        mHandler.postAtTime(this, uptimeMillis);
+    }
+}
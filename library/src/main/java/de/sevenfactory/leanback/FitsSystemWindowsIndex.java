@@ -0,0 +1,243 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Index of all views below a root that fit system windows, refreshed by {@link #update()}
+ * before each use.
+ * <p/>
+ * By default the update walks the whole hierarchy, so every view is found. An incremental
+ * index instead (un)indexes the subtrees of direct children as they come and go, it is
+ * registered as {@link ViewGroup.OnHierarchyChangeListener} of the root only. Listeners of
+ * nested view groups belong to the app and are left alone, so views added below a direct
+ * child afterwards need a {@link #rebuild()}. Views removed from below a direct child are
+ * dropped by the update. Subtrees marked via {@link #setExcluded(View, boolean)} are not
+ * walked.
+ */
+class FitsSystemWindowsIndex implements ViewGroup.OnHierarchyChangeListener {
+
+    private final ViewGroup       mRoot;
+    private final ArrayList<View> mViews = new ArrayList<>();
+
+    // Views of a removed subtree, dropped from the index in one pass
+    private final Set<View> mRemoved = Collections.newSetFromMap(new IdentityHashMap<View, Boolean>());
+
+    private ViewGroup.OnHierarchyChangeListener mRootListener;
+
+    private boolean mIsIncremental;
+    private int     mWalkedViews;
+
+    FitsSystemWindowsIndex(ViewGroup root) {
+        mRoot = root;
+    }
+
+    /* Package local */
+
+    int size() {
+        return mViews.size();
+    }
+
+    View get(int index) {
+        return mViews.get(index);
+    }
+
+    /**
+     * The root's own hierarchy listener is taken by the index,
+     * so a listener set on the root is forwarded from here.
+     */
+    void setRootListener(ViewGroup.OnHierarchyChangeListener listener) {
+        mRootListener = listener;
+    }
+
+    void setIncremental(boolean incremental) {
+        mIsIncremental = incremental;
+        rebuild();
+    }
+
+    /**
+     * Bring the index up to date, call before reading it.
+     *
+     * @return number of views visited
+     */
+    int update() {
+        if (mIsIncremental) {
+            dropDetached();
+            return mViews.size();
+        }
+
+        mWalkedViews = 0;
+        rebuild();
+
+        return mWalkedViews;
+    }
+
+    /**
+     * Drop the current index and walk the hierarchy once again.
+     */
+    void rebuild() {
+        mViews.clear();
+        fill();
+    }
+
+    /**
+     * Exclude a subtree from (or include it in) the index.
+     */
+    void setExcluded(View view, boolean excluded) {
+        view.setTag(R.id.leanback_exclude_from_fitting, excluded ? Boolean.TRUE : null);
+        rebuild();
+    }
+
+    private static boolean isExcluded(View view) {
+        return view.getTag(R.id.leanback_exclude_from_fitting) != null;
+    }
+
+    /* OnHierarchyChangeListener */
+
+    @Override
+    public void onChildViewAdded(View parent, View child) {
+        if (mIsIncremental) {
+            addSubtree(child);
+        }
+
+        if (mRootListener != null) {
+            mRootListener.onChildViewAdded(parent, child);
+        }
+    }
+
+    @Override
+    public void onChildViewRemoved(View parent, View child) {
+        if (mIsIncremental) {
+            removeSubtree(child);
+        }
+
+        if (mRootListener != null) {
+            mRootListener.onChildViewRemoved(parent, child);
+        }
+    }
+
+    /* Helpers */
+
+    private void fill() {
+        for (int i = 0; i < mRoot.getChildCount(); i++) {
+            addSubtree(mRoot.getChildAt(i));
+        }
+    }
+
+    private void addSubtree(View view) {
+        if (isExcluded(view)) {
+            return;
+        }
+
+        mWalkedViews++;
+
+        if (view.getFitsSystemWindows()) {
+            mViews.add(view);
+        }
+
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+
+            for (int i = 0; i < group.getChildCount(); i++) {
+                addSubtree(group.getChildAt(i));
+            }
+        }
+    }
+
+    private void removeSubtree(View view) {
+        collectSubtree(view);
+
+        if (mRemoved.isEmpty()) {
+            return;
+        }
+
+        // Compact in place instead of an O(n) removal per view
+        int size = 0;
+
+        for (int i = 0; i < mViews.size(); i++) {
+            View indexed = mViews.get(i);
+
+            if (!mRemoved.contains(indexed)) {
+                mViews.set(size++, indexed);
+            }
+        }
+
+        mViews.subList(size, mViews.size()).clear();
+        mRemoved.clear();
+    }
+
+    /**
+     * Drop views which were removed from below a direct child, unnoticed by the index.
+     */
+    private void dropDetached() {
+        int size = 0;
+
+        for (int i = 0; i < mViews.size(); i++) {
+            View indexed = mViews.get(i);
+
+            if (isDescendant(indexed)) {
+                mViews.set(size++, indexed);
+            }
+        }
+
+        if (size < mViews.size()) {
+            mViews.subList(size, mViews.size()).clear();
+        }
+    }
+
+    private boolean isDescendant(View view) {
+        for (Object parent = view.getParent(); parent instanceof View; parent = ((View) parent).getParent()) {
+            if (parent == mRoot) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void collectSubtree(View view) {
+        if (isExcluded(view)) {
+            return;
+        }
+
+        // Regardless of the current flag, it may have changed since the view was indexed
+        mRemoved.add(view);
+
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+
+            for (int i = 0; i < group.getChildCount(); i++) {
+                collectSubtree(group.getChildAt(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import android.content.Context;
+import android.view.Choreographer;
+import android.view.WindowManager;
+
+/**
+ * Tracks frame times with a {@link Choreographer.FrameCallback} for a window of time
+ * after a trigger. Tracking allocates nothing, results are reported as primitives.
+ */
+final class FrameTracker implements Choreographer.FrameCallback {
+
+    // Time tracked after a trigger
+    static final long WINDOW_NANOS = 500 * 1000000L;
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    // A frame is janky if it takes longer than one and a half frame budget,
+    // frame times are multiples of the vsync period
+    private static final float JANK_FACTOR = 1.5f;
+
+    private final Context mContext;
+
+    private OnFrameStatsListener mListener;
+    private long mJankThresholdNanos;
+
+    // Tracking state
+    private boolean mIsTracking;
+    private int     mTrigger;
+    private long    mWindowNanos;
+    private long    mWindowEnd;
+    private long    mLastFrame;
+    private int     mFrameCount;
+    private int     mJankyFrameCount;
+    private long    mWorstFrame;
+
+    FrameTracker(Context context) {
+        mContext = context;
+    }
+
+    /* Package local */
+
+    void setListener(OnFrameStatsListener listener) {
+        if (listener == null) {
+            stop();
+        }
+
+        mListener = listener;
+    }
+
+    /**
+     * Track frames for the given window, a running window is reported first.
+     */
+    void start(int trigger, long windowNanos) {
+        if (mListener == null) {
+            return;
+        }
+
+        if (mIsTracking) {
+            report();
+        } else {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        if (mJankThresholdNanos == 0) {
+            mJankThresholdNanos = (long) (JANK_FACTOR * NANOS_PER_SECOND / getRefreshRate());
+        }
+
+        mIsTracking      = true;
+        mTrigger         = trigger;
+        mWindowNanos     = windowNanos;
+        mWindowEnd       = 0;
+        mLastFrame       = 0;
+        mFrameCount      = 0;
+        mJankyFrameCount = 0;
+        mWorstFrame      = 0;
+    }
+
+    void stop() {
+        if (mIsTracking) {
+            mIsTracking = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    /* FrameCallback */
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (mLastFrame == 0) {
+            // First frame starts the window
+            mWindowEnd = frameTimeNanos + mWindowNanos;
+        } else {
+            long duration = frameTimeNanos - mLastFrame;
+
+            mFrameCount++;
+
+            if (duration > mJankThresholdNanos) {
+                mJankyFrameCount++;
+            }
+
+            if (duration > mWorstFrame) {
+                mWorstFrame = duration;
+            }
+        }
+
+        mLastFrame = frameTimeNanos;
+
+        if (frameTimeNanos < mWindowEnd) {
+            Choreographer.getInstance().postFrameCallback(this);
+        } else {
+            mIsTracking = false;
+            report();
+        }
+    }
+
+    /* Helpers */
+
+    private void report() {
+        mListener.onFrameStats(mTrigger, mFrameCount, mJankyFrameCount, mWorstFrame);
+    }
+
+    private float getRefreshRate() {
+        WindowManager windowManager = (WindowManager) mContext.getSystemService(Context.WINDOW_SERVICE);
+        float refreshRate = windowManager.getDefaultDisplay().getRefreshRate();
+
+        return refreshRate > 0 ? refreshRate : 60f;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.view.View;
+
+/**
+ * Window-scoped coordinator of all {@link LeanbackLayout}s of a window.
+ * <p/>
+ * Layouts register lazily, so embedded layouts cost nothing beyond their own fields, and
+ * only one layout is promoted to fullscreen at a time. Promoting another layout demotes
+ * the current one afterwards, so the system UI stays hidden in between. The coordinator
+ * is stored as a tag of the decor view.
+ */
+final class FullscreenCoordinator {
+
+    private LeanbackLayout mPromoted;
+
+    /**
+     * @return the coordinator of the window the context belongs to
+     * @throws IllegalStateException if the context does not wrap an activity
+     */
+    static FullscreenCoordinator get(Context context) {
+        View decorView = requireActivity(context).getWindow().getDecorView();
+        FullscreenCoordinator coordinator = (FullscreenCoordinator) decorView.getTag(R.id.leanback_fullscreen_coordinator);
+
+        if (coordinator == null) {
+            coordinator = new FullscreenCoordinator();
+            decorView.setTag(R.id.leanback_fullscreen_coordinator, coordinator);
+        }
+
+        return coordinator;
+    }
+
+    /**
+     * @throws IllegalStateException if the context does not wrap an activity
+     */
+    static Activity requireActivity(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return (Activity) context;
+            }
+
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+
+        throw new IllegalStateException("No activity available -> Create the LeanbackLayout with an activity context.");
+    }
+
+    /* Package local */
+
+    boolean isPromoted(LeanbackLayout layout) {
+        return mPromoted == layout;
+    }
+
+    /**
+     * Hand the system UI to the given layout, which is about to enter fullscreen.
+     */
+    void promote(LeanbackLayout layout) {
+        if (mPromoted == layout) {
+            return;
+        }
+
+        LeanbackLayout previous = mPromoted;
+        mPromoted = layout;
+
+        // Request hidden system UI before the previous layout withdraws its request
+        layout.onPromoted();
+
+        if (previous != null) {
+            // One fullscreen layout at a time
+            previous.onDemoted();
+        }
+    }
+
+    /**
+     * Release the system UI, e.g. when the layout left fullscreen or was detached.
+     */
+    void demote(LeanbackLayout layout) {
+        if (mPromoted == layout) {
+            mPromoted = null;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.graphics.Rect;
+import android.view.View;
+
+/**
+ * Animates a view between its current and its target bounds by scale and translation
+ * on a hardware layer, so no frame of the transition measures or lays out the hierarchy.
+ * The target layout is committed once the transition ends.
+ */
+final class FullscreenTransition extends AnimatorListenerAdapter implements ValueAnimator.AnimatorUpdateListener {
+
+    interface Callback {
+        /**
+         * Called when the transition ended. If it was not reversed back to its start,
+         * the target layout has to be committed.
+         */
+        void onTransitionEnd(boolean isCommitted);
+    }
+
+    private final View          mView;
+    private final Callback      mCallback;
+    private final ValueAnimator mAnimator;
+
+    // Transformation at the end of the transition
+    private float mTargetScaleX;
+    private float mTargetScaleY;
+    private float mTargetTranslationX;
+    private float mTargetTranslationY;
+
+    private boolean mToFullscreen;
+    private boolean mIsReversed;
+    private int     mPreviousLayerType;
+
+    FullscreenTransition(View view, Callback callback) {
+        mView     = view;
+        mCallback = callback;
+
+        mAnimator = ValueAnimator.ofFloat(0f, 1f);
+        mAnimator.addUpdateListener(this);
+        mAnimator.addListener(this);
+    }
+
+    /* Package local */
+
+    /**
+     * Start to transform the view from its current bounds into the target bounds.
+     */
+    void start(boolean toFullscreen, Rect target, long durationMillis) {
+        mToFullscreen = toFullscreen;
+        mIsReversed   = false;
+
+        mTargetScaleX       = (float) target.width() / mView.getWidth();
+        mTargetScaleY       = (float) target.height() / mView.getHeight();
+        mTargetTranslationX = target.left - mView.getLeft();
+        mTargetTranslationY = target.top - mView.getTop();
+
+        mView.setPivotX(0);
+        mView.setPivotY(0);
+
+        mPreviousLayerType = mView.getLayerType();
+        mView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+
+        mAnimator.setDuration(durationMillis);
+        mAnimator.start();
+    }
+
+    /**
+     * Heads the running transition to the given state, reversing it if necessary.
+     */
+    void setTarget(boolean isFullscreen) {
+        if (isFullscreen != isHeadingToFullscreen()) {
+            mIsReversed = !mIsReversed;
+            mAnimator.reverse();
+        }
+    }
+
+    /**
+     * Jumps to the end of a running transition.
+     */
+    void end() {
+        if (mAnimator.isRunning()) {
+            mAnimator.end();
+        }
+    }
+
+    /* Helpers */
+
+    private boolean isHeadingToFullscreen() {
+        return mToFullscreen != mIsReversed;
+    }
+
+    /* AnimatorUpdateListener */
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        float fraction = animation.getAnimatedFraction();
+
+        mView.setScaleX(1 + (mTargetScaleX - 1) * fraction);
+        mView.setScaleY(1 + (mTargetScaleY - 1) * fraction);
+        mView.setTranslationX(mTargetTranslationX * fraction);
+        mView.setTranslationY(mTargetTranslationY * fraction);
+    }
+
+    /* AnimatorListener */
+
+    @Override
+    public void onAnimationEnd(Animator animation) {
+        // Commit first, the reset transformation and the new layout are drawn in the same frame
+        mCallback.onTransitionEnd(!mIsReversed);
+
+        mView.setScaleX(1);
+        mView.setScaleY(1);
+        mView.setTranslationX(0);
+        mView.setTranslationY(0);
+        mView.setLayerType(mPreviousLayerType, null);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Build;
+import android.os.Handler;
+
+import de.sevenfactory.leanback.core.SensorTrace;
+
+/**
+ * Samples of the gravity sensor, or of the accelerometer on devices without one.
+ * The accelerometer includes linear acceleration, which the orientation filter smooths.
+ */
+final class HardwareSensorSource implements SensorSource, SensorEventListener {
+
+    private final SensorManager mSensorManager;
+    private final Sensor        mSensor;
+    private final String        mName;
+
+    private Callback mCallback;
+
+    private HardwareSensorSource(SensorManager sensorManager, Sensor sensor, String name) {
+        mSensorManager = sensorManager;
+        mSensor        = sensor;
+        mName          = name;
+    }
+
+    /**
+     * @return a source for the gravity sensor, the accelerometer as fallback,
+     *         or null if the device has neither
+     */
+    static HardwareSensorSource create(Context context) {
+        SensorManager sensorManager = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
+
+        if (sensorManager == null) {
+            return null;
+        }
+
+        Sensor gravity = sensorManager.getDefaultSensor(Sensor.TYPE_GRAVITY);
+
+        if (gravity != null) {
+            return new HardwareSensorSource(sensorManager, gravity, SensorTrace.SOURCE_GRAVITY);
+        }
+
+        Sensor accelerometer = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+
+        if (accelerometer != null) {
+            return new HardwareSensorSource(sensorManager, accelerometer, SensorTrace.SOURCE_ACCELEROMETER);
+        }
+
+        return null;
+    }
+
+    /* SensorSource */
+
+    @Override
+    public String getName() {
+        return mName;
+    }
+
+    @Override
+    public void start(Callback callback, int samplingPeriodUs, int maxReportLatencyUs, Handler handler) {
+        stop();
+        mCallback = callback;
+
+        if (maxReportLatencyUs > 0
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT
+                && mSensor.getFifoMaxEventCount() > 0) {
+            // Let the sensor hub batch events while the device is still
+            mSensorManager.registerListener(this, mSensor, samplingPeriodUs, maxReportLatencyUs, handler);
+        } else {
+            mSensorManager.registerListener(this, mSensor, samplingPeriodUs, handler);
+        }
+    }
+
+    @Override
+    public void stop() {
+        mSensorManager.unregisterListener(this, mSensor);
+    }
+
+    /* SensorEventListener */
+
+    @Override
+    public void onSensorChanged(SensorEvent sensorEvent) {
+        mCallback.onSample(sensorEvent.values[0], sensorEvent.values[1], sensorEvent.values[2], sensorEvent.timestamp);
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {
+        // Not used
+    }
+}
@@ -29,10 +29,12 @@ import android.content.res.Configuration;
 import android.support.annotation.CallSuper;
 import android.support.annotation.LayoutRes;
 import android.support.v7.app.AppCompatActivity;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+
+import java.io.File;
 
 /**
  * An full-screen activity that shows and hides the system UI (i.e.
@@ -41,13 +43,14 @@ import android.view.ViewGroup;
  */
 public abstract class LeanbackActivity extends AppCompatActivity implements OnFullscreenChangeListener, OnSystemUiChangeListener {
 
-    private final static boolean DEBUG = false;
-
     private boolean mForceLandscape = false;
 
     private LeanbackLayout mContainer;
     private RotationHelper mRotationHelper;
 
+    // Creation time, for time to first frame
+    private final long mCreationNanos = System.nanoTime();
+
     @Override
     public void setContentView(@LayoutRes int layoutResID) {
         init();
@@ -67,9 +70,18 @@ public abstract class LeanbackActivity extends AppCompatActivity implements OnFu
     }
 
     private void init() {
-        super.setContentView(R.layout.activity_leanback);
+        if (mContainer != null) {
+            // Replace the content, keep the container
+            mContainer.removeAllViews();
+            return;
+        }
+
+        // Built in code, there is nothing to inflate
+        mContainer = new LeanbackLayout(this);
+        mContainer.setId(R.id.leanback_container);
 
-        mContainer = (LeanbackLayout) findViewById(R.id.leanback_container);
+        super.setContentView(mContainer, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        mContainer.getViewTreeObserver().addOnPreDrawListener(new FirstFrameListener());
     }
 
     private void addView(View view) {
@@ -88,8 +100,8 @@ public abstract class LeanbackActivity extends AppCompatActivity implements OnFu
     protected void onStart() {
         super.onStart();
 
-        mContainer.setOnFullscreenChangeListener(this);
-        mContainer.setOnSystemUiChangeListener(this);
+        mContainer.addOnFullscreenChangeListener(this);
+        mContainer.addOnSystemUiChangeListener(this);
     }
 
     @Override
@@ -104,7 +116,7 @@ public abstract class LeanbackActivity extends AppCompatActivity implements OnFu
     @Override
     protected void onPause() {
         if (mRotationHelper != null) {
-            mRotationHelper.pause();
+            onSensorSessionFinished(mRotationHelper.pause());
         }
 
         super.onPause();
@@ -112,8 +124,8 @@ public abstract class LeanbackActivity extends AppCompatActivity implements OnFu
 
     @Override
     protected void onStop() {
-        mContainer.removeOnFullscreenChangeListener();
-        mContainer.removeOnSystemUiChangeListener();
+        mContainer.removeOnFullscreenChangeListener(this);
+        mContainer.removeOnSystemUiChangeListener(this);
 
         super.onStop();
     }
@@ -121,9 +133,10 @@ public abstract class LeanbackActivity extends AppCompatActivity implements OnFu
     /* Fullscreen */
 
     /**
-     * Toggle fullscreen mode. If you want to know the current state,
-     * pull it with {@link #isFullscreen()} or get it pushed by overriding
-     * {@link #onFullscreenChanged(boolean)} (boolean)}.
+     * Toggle fullscreen mode. The change is committed with the next frame, together with
+     * other requests like rotations, and the requested state is returned. If you want to
+     * know the current state, pull it with {@link #isFullscreen()} or get it pushed by
+     * overriding {@link #onFullscreenChanged(boolean)}.
      */
     protected final boolean toggleFullscreen() {
         return mContainer.toggle();
@@ -145,6 +158,90 @@ public abstract class LeanbackActivity extends AppCompatActivity implements OnFu
         return mContainer.isSystemUiVisible();
     }
 
+    /**
+     * Add a listener for fullscreen changes, e.g. of a player controller or an overlay.
+     * The activity itself is always notified via {@link #onFullscreenChanged(boolean)}.
+     */
+    public final void addOnFullscreenChangeListener(OnFullscreenChangeListener listener) {
+        mContainer.addOnFullscreenChangeListener(listener);
+    }
+
+    public final void removeOnFullscreenChangeListener(OnFullscreenChangeListener listener) {
+        mContainer.removeOnFullscreenChangeListener(listener);
+    }
+
+    /**
+     * Add a listener for system UI changes. The activity itself is always notified
+     * via {@link #onSystemUiChanged(boolean)}.
+     */
+    public final void addOnSystemUiChangeListener(OnSystemUiChangeListener listener) {
+        mContainer.addOnSystemUiChangeListener(listener);
+    }
+
+    public final void removeOnSystemUiChangeListener(OnSystemUiChangeListener listener) {
+        mContainer.removeOnSystemUiChangeListener(listener);
+    }
+
+    /**
+     * Request visible or hidden system UI on behalf of a component, e.g. a dialog, also
+     * before the content is attached, see {@link LeanbackLayout#requestSystemUiVisibility(Object, boolean)}.
+     */
+    public final void requestSystemUiVisibility(Object client, boolean visible) {
+        mContainer.requestSystemUiVisibility(client, visible);
+    }
+
+    public final void clearSystemUiRequest(Object client) {
+        mContainer.clearSystemUiRequest(client);
+    }
+
+    /**
+     * Set a listener for performance metrics of fullscreen and system UI changes,
+     * null to remove it.
+     */
+    protected final void setMetricsListener(MetricsListener listener) {
+        mContainer.setMetricsListener(listener);
+    }
+
+    /**
+     * Configure the activity to use immersive sticky fullscreen on API 19+. System UI
+     * revealed by the user overlays the content instead of resizing it.
+     */
+    protected final void setImmersiveSticky(boolean immersiveSticky) {
+        mContainer.setImmersiveSticky(immersiveSticky);
+    }
+
+    /**
+     * Keep the buffer size of a video surface fixed across fullscreen changes,
+     * see {@link LeanbackLayout#setSurfacePreserving(boolean)}.
+     */
+    protected final void setSurfacePreserving(boolean enabled) {
+        mContainer.setSurfacePreserving(enabled);
+    }
+
+    /**
+     * Skip drawing backgrounds hidden behind opaque content in fullscreen,
+     * see {@link LeanbackLayout#setOverdrawAware(boolean)}.
+     */
+    protected final void setOverdrawAware(boolean enabled) {
+        mContainer.setOverdrawAware(enabled);
+    }
+
+    /**
+     * Index the views which fit system windows instead of walking the content on every
+     * fullscreen change. Requires {@link LeanbackLayout#invalidateSystemUiFitting()} after
+     * nested hierarchy changes, see {@link LeanbackLayout#setSystemUiFittingIndexed(boolean)}.
+     */
+    protected final void setSystemUiFittingIndexed(boolean enabled) {
+        mContainer.setSystemUiFittingIndexed(enabled);
+    }
+
+    /**
+     * Configure the time after which system UI revealed by the user is hidden again.
+     */
+    protected final void setAutoHideDelay(long delayMillis) {
+        mContainer.setAutoHideDelay(delayMillis);
+    }
+
     /**
      * Configure the activity to force the layout to rotate into landscape
      * when it enters fullscreen mode.
@@ -163,14 +260,45 @@ public abstract class LeanbackActivity extends AppCompatActivity implements OnFu
         }
     }
 
+    /**
+     * Configure how stable a device rotation has to be before the orientation is changed.
+     * Requires {@link #forceFullscreenOnLandscape(boolean)} to be enabled.
+     *
+     * @param filterTimeConstantMillis time constant of the low-pass filter applied to sensor samples
+     * @param hysteresisDegrees        angle beyond the 45 degree border a rotation has to reach
+     * @param dwellTimeMillis          time a new orientation has to be stable
+     */
+    protected final void setOrientationFilter(long filterTimeConstantMillis, float hysteresisDegrees, long dwellTimeMillis) {
+        if (mRotationHelper == null) {
+            throw new IllegalStateException("Rotation is not observed -> Call forceFullscreenOnLandscape(true) first.");
+        }
+
+        mRotationHelper.setOrientationFilter(filterTimeConstantMillis, hysteresisDegrees, dwellTimeMillis);
+    }
+
+    /**
+     * Record the rotation sensor samples of each resumed session to the given file, e.g. to
+     * replay orientation issues in tests, null to stop recording. The file is overwritten on
+     * every resume. Requires {@link #forceFullscreenOnLandscape(boolean)} to be enabled.
+     *
+     * @see de.sevenfactory.leanback.core.SensorTrace
+     */
+    protected final void recordSensorTrace(File file) {
+        if (mRotationHelper == null) {
+            throw new IllegalStateException("Rotation is not observed -> Call forceFullscreenOnLandscape(true) first.");
+        }
+
+        mRotationHelper.setTraceFile(file);
+    }
+
     /**
      * Override this method if you want to react to fullscreen changes
      */
     @CallSuper
     @Override
     public void onFullscreenChanged(boolean isFullscreen) {
-        if (DEBUG) {
-            Log.d(getClass().getSimpleName(), "onFullscreenChanged() called with: " + "isFullscreen = [" + isFullscreen + "]");
+        if (mRotationHelper != null) {
+            mRotationHelper.setFullscreen(isFullscreen);
         }
 
         if (mForceLandscape && isFullscreen) {
@@ -186,9 +314,22 @@ public abstract class LeanbackActivity extends AppCompatActivity implements OnFu
     @CallSuper
     @Override
     public void onSystemUiChanged(boolean isSystemUiVisible) {
-        if (DEBUG) {
-            Log.d(getClass().getSimpleName(), "onSystemUiChanged() called with: " + "isSystemUiVisible = [" + isSystemUiVisible + "]");
-        }
+    }
+
+    /**
+     * Override this method if you want to measure the sensor usage of
+     * {@link #forceFullscreenOnLandscape(boolean)}. Called on every pause.
+     */
+    protected void onSensorSessionFinished(SensorSessionStats stats) {
+    }
+
+    /**
+     * Override this method if you want to measure startup. Called once, before the first
+     * frame of the content is drawn.
+     *
+     * @param timeToFirstFrameNanos time since the activity was created
+     */
+    protected void onFirstFrame(long timeToFirstFrameNanos) {
     }
 
     /**
@@ -207,4 +348,14 @@ public abstract class LeanbackActivity extends AppCompatActivity implements OnFu
             }
         }
     }
+
+    private class FirstFrameListener implements ViewTreeObserver.OnPreDrawListener {
+        @Override
+        public boolean onPreDraw() {
+            mContainer.getViewTreeObserver().removeOnPreDrawListener(this);
+            onFirstFrame(System.nanoTime() - mCreationNanos);
+
+            return true;
+        }
+    }
 }
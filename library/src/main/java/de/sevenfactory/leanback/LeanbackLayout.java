@@ -24,26 +24,95 @@
 
 package de.sevenfactory.leanback;
 
-import android.app.Activity;
+import android.annotation.TargetApi;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.graphics.Color;
 import android.graphics.Rect;
 import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.util.AttributeSet;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.WindowInsets;
+import android.view.WindowManager;
 import android.widget.FrameLayout;
 
+import de.sevenfactory.leanback.core.FullscreenStateMachine;
+import de.sevenfactory.leanback.core.InsetState;
+import de.sevenfactory.leanback.core.VisibilityArbiter;
+
 public class LeanbackLayout extends FrameLayout {
 
 
     private ViewGroup.LayoutParams mEmbeddedLayoutParams;
     private ViewGroup.LayoutParams mFullscreenLayoutParams = new LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
 
+    private final FitsSystemWindowsIndex mFittingViews = new FitsSystemWindowsIndex(this);
+
+    private final ListenerList<OnFullscreenChangeListener> mFullscreenListeners = new ListenerList<>();
+
+    // Listeners of the deprecated setters
     private OnFullscreenChangeListener mFullscreenListener;
+    private OnSystemUiChangeListener mSystemUiListener;
+
+    // Window-scoped coordinator and shared system UI helper, resolved on first use
+    private FullscreenCoordinator mCoordinator;
     private SystemUiHelper mSystemUiHelper;
-    private Rect mWindowInsets;
-    private boolean mIsFullscreen;
+    private final ListenerList<OnSystemUiChangeListener> mSystemUiListeners = new ListenerList<>();
+    private final OnSystemUiChangeListener mSystemUiForwarder = new SystemUiForwarder();
+
+    // Requests of other components, held while detached and handed to every acquired helper
+    private final VisibilityArbiter mSystemUiRequests = new VisibilityArbiter();
+
+    // System UI configuration, applied while promoted
+    private boolean mImmersiveSticky;
+    private long    mAutoHideDelay = SystemUiHelper.DELAY;
+
+    private final FullscreenStateMachine mState = new FullscreenStateMachine();
+    private final InsetState mWindowInsets = new InsetState();
+    private WindowManager mWindowManager;
+    private final int[] mPadding = new int[4];
+
+    // Last dispatched and consumed insets, the latter are returned again
+    // as long as the system window insets do not change
+    private WindowInsets mLastInsets;
+    private WindowInsets mConsumedInsets;
+
+    // Layout batching
+    private boolean mSingleLayoutPass = true;
+    private boolean mIsBatchingLayout;
+    private boolean mHasPendingLayout;
+    private int     mLayoutPassCount;
+
+    // Metrics
+    private MetricsListener mMetricsListener = MetricsListener.NONE;
+    private long mChangeNanos;
+    private int  mVisitedViews;
+    private int  mPaddingCalls;
+    private int  mLayoutParamsCalls;
+    private FrameTracker mFrameTracker;
+
+    // Animated transition
+    private FullscreenTransition mTransition;
+
+    // Commits the requests of a frame
+    private final Runnable mCommitRequest = new CommitRequestRunnable();
+    private boolean mIsAttached;
+    private final Rect mEmbeddedBounds = new Rect();
+    private final Rect mTransitionTarget = new Rect();
+    private long mTransitionDuration;
+
+    // Fixed video surface size
+    private final SurfacePreserver mSurfacePreserver = new SurfacePreserver(this);
+    private boolean mPreserveSurface;
+
+    // Backgrounds hidden behind opaque content
+    private final OverdrawController mOverdrawController = new OverdrawController(this);
+    private boolean mAvoidOverdraw;
 
     public LeanbackLayout(Context context) {
         this(context, null);
@@ -62,127 +131,921 @@ public class LeanbackLayout extends FrameLayout {
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
+        mIsAttached = true;
+
+        // Insets dispatched from now on belong to the current rotation
+        selectWindowInsets();
+
+        // Save LayoutParams for embedded mode, unless restored in fullscreen
+        if (!isFullscreen() || mEmbeddedLayoutParams == null) {
+            captureEmbeddedLayoutParams();
+        }
+
+        // Embedded layouts without system UI clients leave the helper alone
+        if (!mSystemUiRequests.isEmpty() || mSystemUiListeners.snapshot().length > 0) {
+            getSystemUiHelper();
+        }
+
+        if (isFullscreen()) {
+            // Reattached in fullscreen, take the system UI back
+            getCoordinator().promote(this);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        // Do not leave the layout in between both states
+        mIsAttached = false;
+        cancelRequest();
+        endTransition();
+        mFrameTracker.stop();
+        mOverdrawController.restore();
+
+        if (mCoordinator != null) {
+            mCoordinator.demote(this);
+        }
+
+        if (mSystemUiHelper != null) {
+            // Withdraw requests and the reference of this layout, requests of other
+            // components are kept for the next attach
+            mSystemUiHelper.clearRequest(this);
+            mSystemUiHelper.clearAll(mSystemUiRequests);
+            mSystemUiHelper.removeListener(mSystemUiForwarder);
+            mSystemUiHelper.release();
+            mSystemUiHelper = null;
+        }
 
-        // Save LayoutParams for embedded mode
-        mEmbeddedLayoutParams = getLayoutParams();
+        super.onDetachedFromWindow();
     }
 
     private void init() {
         // Styling
         setBackgroundColor(Color.BLACK);
 
-        // Defaults
-        mIsFullscreen = false;
+        // Keep track of views which fit system windows
+        super.setOnHierarchyChangeListener(mFittingViews);
+
+        // Jank detection, disabled until a listener is set
+        mFrameTracker = new FrameTracker(getContext());
+    }
+
+    /**
+     * The coordinator is resolved on first use, so embedded layouts, e.g. items of a
+     * list, are cheap to create and recycle.
+     */
+    private FullscreenCoordinator getCoordinator() {
+        if (mCoordinator == null) {
+            mCoordinator = FullscreenCoordinator.get(getContext());
+        }
+
+        return mCoordinator;
+    }
+
+    /**
+     * The helper is shared by all layouts of the window. It is acquired on first use while
+     * attached, i.e. on promotion, on a request of another component or once a system UI
+     * listener is added, and held until the layout is detached.
+     */
+    private SystemUiHelper getSystemUiHelper() {
+        if (mSystemUiHelper == null) {
+            mSystemUiHelper = SystemUiHelper.acquire(FullscreenCoordinator.requireActivity(getContext()));
+            mSystemUiHelper.addListener(mSystemUiForwarder);
+            mSystemUiHelper.requestAll(mSystemUiRequests);
+        }
+
+        return mSystemUiHelper;
+    }
+
+    /**
+     * Called by the coordinator when this layout takes over the system UI.
+     * Layouts are promoted while attached only.
+     */
+    void onPromoted() {
+        SystemUiHelper systemUiHelper = getSystemUiHelper();
+
+        systemUiHelper.setAutoHideDelay(mAutoHideDelay);
+        systemUiHelper.setImmersiveSticky(mImmersiveSticky);
+        systemUiHelper.setMetricsListener(mMetricsListener);
+        systemUiHelper.setFrameTracker(mFrameTracker);
+
+        // Hide system UI
+        systemUiHelper.request(this, false);
+    }
+
+    private boolean isPromoted() {
+        return mCoordinator != null && mCoordinator.isPromoted(this);
+    }
 
-        // Get parent activity
-        Activity activity = ((Activity) getContext());
+    public void addOnFullscreenChangeListener(OnFullscreenChangeListener listener) {
+        mFullscreenListeners.add(listener);
+    }
 
-        if(activity == null) {
-            throw new IllegalStateException("No activity available -> Consider a later creation of the LeanbackLayout.");
+    public void removeOnFullscreenChangeListener(OnFullscreenChangeListener listener) {
+        mFullscreenListeners.remove(listener);
+    }
+
+    public void addOnSystemUiChangeListener(OnSystemUiChangeListener listener) {
+        mSystemUiListeners.add(listener);
+
+        if (mIsAttached) {
+            // Forward changes caused by other layouts or components as well
+            getSystemUiHelper();
         }
+    }
 
-        // Create system ui helper
-        mSystemUiHelper = new SystemUiHelper(activity);
+    public void removeOnSystemUiChangeListener(OnSystemUiChangeListener listener) {
+        mSystemUiListeners.remove(listener);
     }
 
+    /**
+     * @deprecated Replaces only the listener set with this method,
+     * use {@link #addOnFullscreenChangeListener(OnFullscreenChangeListener)} instead.
+     */
+    @Deprecated
     public void setOnFullscreenChangeListener(OnFullscreenChangeListener listener) {
+        removeOnFullscreenChangeListener();
+
         mFullscreenListener = listener;
+        addOnFullscreenChangeListener(listener);
     }
 
+    /**
+     * @deprecated Use {@link #removeOnFullscreenChangeListener(OnFullscreenChangeListener)} instead.
+     */
+    @Deprecated
     public void removeOnFullscreenChangeListener() {
+        removeOnFullscreenChangeListener(mFullscreenListener);
         mFullscreenListener = null;
     }
 
+    /**
+     * @deprecated Replaces only the listener set with this method,
+     * use {@link #addOnSystemUiChangeListener(OnSystemUiChangeListener)} instead.
+     */
+    @Deprecated
     public void setOnSystemUiChangeListener(OnSystemUiChangeListener listener) {
-        if (mSystemUiHelper == null) {
-            init();
-        }
+        removeOnSystemUiChangeListener();
 
-        mSystemUiHelper.setListener(listener);
+        mSystemUiListener = listener;
+        addOnSystemUiChangeListener(listener);
     }
 
+    /**
+     * @deprecated Use {@link #removeOnSystemUiChangeListener(OnSystemUiChangeListener)} instead.
+     */
+    @Deprecated
     public void removeOnSystemUiChangeListener() {
-        mSystemUiHelper.removeListener();
+        removeOnSystemUiChangeListener(mSystemUiListener);
+        mSystemUiListener = null;
+    }
+
+    @Override
+    public void setOnHierarchyChangeListener(OnHierarchyChangeListener listener) {
+        // The hierarchy listener is used by the index, forward to the given one
+        mFittingViews.setRootListener(listener);
+    }
+
+    /**
+     * Exclude a subtree from fitting the system UI. The subtree is not traversed, which
+     * is useful for large subtrees like lists.
+     */
+    public void setExcludedFromSystemUiFitting(View view, boolean excluded) {
+        mFittingViews.setExcluded(view, excluded);
+    }
+
+    /**
+     * By default every fullscreen change walks the whole hierarchy to find the views which
+     * fit system windows. Enable indexing to walk the subtree of a child only once, when
+     * the child is added to this layout. Nested view groups are not observed, so with
+     * indexing enabled {@link #invalidateSystemUiFitting()} has to be called whenever views
+     * which fit system windows are added below a child afterwards, e.g. by a fragment
+     * transaction into a nested container. Views removed from below a child are dropped
+     * from the index automatically.
+     */
+    public void setSystemUiFittingIndexed(boolean enabled) {
+        mFittingViews.setIncremental(enabled);
+    }
+
+    /**
+     * Find the views which fit system windows again. Required with indexing enabled, see
+     * {@link #setSystemUiFittingIndexed(boolean)}, if views are added below a child of
+     * this layout, or if {@link View#setFitsSystemWindows(boolean)} is changed.
+     */
+    public void invalidateSystemUiFitting() {
+        mFittingViews.rebuild();
+        updateSystemUiPadding();
     }
 
     /* FullscreenHandling */
 
+    /**
+     * Toggle the requested state, see {@link #requestFullscreen(boolean)}.
+     *
+     * @return true if fullscreen is requested now
+     */
     public boolean toggle() {
-        if (!mIsFullscreen) {
-            enterFullscreen();
+        requestFullscreen(!mState.isFullscreenRequested());
+
+        return mState.isFullscreenRequested();
+    }
+
+    void enterFullscreen() {
+        requestFullscreen(true);
+    }
+
+    void exitFullscreen() {
+        requestFullscreen(false);
+    }
+
+    /**
+     * Requests are committed with the next animation frame, so all requests of a frame,
+     * e.g. a user toggle and a rotation, result in one net change. Requests for the current
+     * state are no-ops, and a running transition is reversed if it is superseded.
+     */
+    private void requestFullscreen(boolean isFullscreen) {
+        if (!mState.request(isFullscreen)) {
+            return;
+        }
+
+        if (mIsAttached) {
+            postOnAnimation(mCommitRequest);
         } else {
-            exitFullscreen();
+            // No frames to wait for
+            commitRequest();
         }
+    }
+
+    private void commitRequest() {
+        removeCallbacks(mCommitRequest);
 
-        return mIsFullscreen;
+        if (!mState.takeRequest()) {
+            // Requests cancelled each other out
+            return;
+        }
+
+        if (mState.isFullscreen()) {
+            performExitFullscreen();
+        } else {
+            performEnterFullscreen();
+        }
     }
 
-    void exitFullscreen() {
-        mIsFullscreen = false;
+    private void cancelRequest() {
+        removeCallbacks(mCommitRequest);
+        mState.cancelRequest();
+    }
 
-        // Show system UI
-        mSystemUiHelper.show();
+    /**
+     * Called by the coordinator when another layout is promoted to fullscreen.
+     */
+    void onDemoted() {
+        // Requests of this layout are superseded
+        cancelRequest();
 
-        // Update layout params
-        setLayoutParams(mEmbeddedLayoutParams);
-        updateSystemUiPadding();
+        if (isFullscreen()) {
+            // The other layout already requested hidden system UI
+            performExitFullscreen();
+        }
+    }
 
-        // Notify
-        notifiyListener();
+    private void performExitFullscreen() {
+        if (LeanbackTrace.ENABLED) {
+            LeanbackTrace.begin(LeanbackTrace.EXIT_FULLSCREEN);
+        }
+
+        long start = System.nanoTime();
+        resetCounters();
+        mFrameTracker.start(OnFrameStatsListener.TRIGGER_EXIT_FULLSCREEN, FrameTracker.WINDOW_NANOS + mTransitionDuration * 1000000L);
+
+        // Show system UI, unless requested hidden by another client
+        if (mSystemUiHelper != null) {
+            mSystemUiHelper.clearRequest(this);
+        }
+
+        if (mCoordinator != null) {
+            mCoordinator.demote(this);
+        }
+
+        // Update layout
+        changeLayout(false);
+
+        mChangeNanos += System.nanoTime() - start;
+
+        if (!mState.isTransitioning()) {
+            reportChange();
+        }
+
+        if (LeanbackTrace.ENABLED) {
+            LeanbackTrace.end();
+        }
     }
 
-    void enterFullscreen() {
-        mIsFullscreen = true;
+    private void performEnterFullscreen() {
+        if (LeanbackTrace.ENABLED) {
+            LeanbackTrace.begin(LeanbackTrace.ENTER_FULLSCREEN);
+        }
 
-        // Hide system UI
-        mSystemUiHelper.hide();
+        long start = System.nanoTime();
+        resetCounters();
+        mFrameTracker.start(OnFrameStatsListener.TRIGGER_ENTER_FULLSCREEN, FrameTracker.WINDOW_NANOS + mTransitionDuration * 1000000L);
 
-        // Update layout params
-        setLayoutParams(mFullscreenLayoutParams);
-        updateSystemUiPadding();
+        // Hide system UI, a detached layout takes it over once attached
+        if (mIsAttached) {
+            getCoordinator().promote(this);
+        }
+
+        // Update layout
+        changeLayout(true);
+
+        mChangeNanos += System.nanoTime() - start;
+
+        if (!mState.isTransitioning()) {
+            reportChange();
+        }
+
+        if (LeanbackTrace.ENABLED) {
+            LeanbackTrace.end();
+        }
+    }
+
+    public boolean isFullscreen() {
+        return mState.isFullscreen();
+    }
+
+    /* State */
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState state = new SavedState(super.onSaveInstanceState());
+        state.isFullscreen = mState.isFullscreenRequested();
+
+        return state;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+
+        if (savedState.isFullscreen != mState.isFullscreenRequested()) {
+            restoreFullscreen(savedState.isFullscreen);
+        }
+    }
+
+    /**
+     * Restoring happens before the first layout pass, change the mode instantly so the
+     * embedded layout is never shown.
+     */
+    private void restoreFullscreen(boolean isFullscreen) {
+        cancelRequest();
+        endTransition();
+
+        // System UI follows the mode, bars revealed before are hidden again
+        if (isFullscreen) {
+            if (mIsAttached) {
+                getCoordinator().promote(this);
+            }
+        } else if (isPromoted()) {
+            mSystemUiHelper.clearRequest(this);
+            mCoordinator.demote(this);
+        }
+
+        mState.setFullscreen(isFullscreen, false);
+        commitLayout();
 
         // Notify
         notifiyListener();
     }
 
-    public boolean isFullscreen() {
-        return mIsFullscreen;
+    static class SavedState extends BaseSavedState {
+        boolean isFullscreen;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            isFullscreen = in.readInt() != 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(isFullscreen ? 1 : 0);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
     }
 
+    /**
+     * @return true if the system UI is visible, which it is by default while the layout
+     *         is not attached or no layout of the window controls it
+     */
     public boolean isSystemUiVisible() {
-        return mSystemUiHelper.isShowing();
+        SystemUiHelper systemUiHelper = mSystemUiHelper;
+
+        if (systemUiHelper == null && mIsAttached) {
+            systemUiHelper = SystemUiHelper.peek(getRootView());
+        }
+
+        return systemUiHelper == null || systemUiHelper.isShowing();
+    }
+
+    /**
+     * Request visible or hidden system UI on behalf of another component, e.g. a dialog or
+     * an overlay, until {@link #clearSystemUiRequest(Object)}. Requests of all components of
+     * the window are arbitrated, visible system UI wins over hidden. Requests made while the
+     * layout is detached, e.g. in {@code onCreate()}, apply once it is attached, and are
+     * withdrawn from the window while it is detached again.
+     */
+    public void requestSystemUiVisibility(Object client, boolean visible) {
+        mSystemUiRequests.request(client, visible);
+
+        if (mIsAttached) {
+            getSystemUiHelper().request(client, visible);
+        }
+    }
+
+    /**
+     * Withdraw the request of the client, see {@link #requestSystemUiVisibility(Object, boolean)}.
+     */
+    public void clearSystemUiRequest(Object client) {
+        mSystemUiRequests.clear(client);
+
+        if (mSystemUiHelper != null) {
+            mSystemUiHelper.clearRequest(client);
+        }
+    }
+
+    /**
+     * Set a listener for performance metrics, null to remove it.
+     */
+    public void setMetricsListener(MetricsListener listener) {
+        mMetricsListener = listener != null ? listener : MetricsListener.NONE;
+        if (isPromoted()) {
+            mSystemUiHelper.setMetricsListener(mMetricsListener);
+        }
+    }
+
+    /**
+     * Set a listener for frame statistics around fullscreen transitions and system UI
+     * auto-hide. Frames are only tracked while a listener is set, null to remove it.
+     */
+    public void setOnFrameStatsListener(OnFrameStatsListener listener) {
+        mFrameTracker.setListener(listener);
+    }
+
+    /**
+     * Use immersive sticky mode on API 19+, i.e. system UI revealed by the user overlays
+     * the content transiently and hides itself, without any relayout. Below API 19 the
+     * system UI is revealed and hidden after the auto hide delay.
+     */
+    public void setImmersiveSticky(boolean immersiveSticky) {
+        mImmersiveSticky = immersiveSticky;
+
+        if (isPromoted()) {
+            mSystemUiHelper.setImmersiveSticky(immersiveSticky);
+        }
+    }
+
+    /**
+     * Set the time after which system UI revealed by the user is hidden again.
+     * Every touch, key or D-pad event within the layout restarts the countdown.
+     */
+    public void setAutoHideDelay(long delayMillis) {
+        mAutoHideDelay = delayMillis;
+
+        if (isPromoted()) {
+            mSystemUiHelper.setAutoHideDelay(delayMillis);
+        }
+    }
+
+    /**
+     * Animate fullscreen changes by transforming the layout instead of a relayout
+     * on every frame. The new layout is committed once the animation ends.
+     *
+     * @param durationMillis duration of the animation, 0 (default) for instant changes
+     */
+    public void setFullscreenTransitionDuration(long durationMillis) {
+        mTransitionDuration = durationMillis;
+    }
+
+    /**
+     * If enabled (default), all layout param and padding changes of a fullscreen change are
+     * collected and result in a single measure and layout pass.
+     */
+    public void setSingleLayoutPassTransitions(boolean enabled) {
+        mSingleLayoutPass = enabled;
+    }
+
+    /**
+     * Keep the buffer size of a {@link android.view.SurfaceView} or {@link android.view.TextureView}
+     * child fixed across fullscreen changes, so a decoder rendering into it does not reallocate
+     * its output buffers. The content is scaled to the view bounds instead, at the resolution
+     * the surface had when the first change happened.
+     */
+    public void setSurfacePreserving(boolean enabled) {
+        mPreserveSurface = enabled;
+
+        if (!enabled && mSurfacePreserver.isLocked()) {
+            mSurfacePreserver.unlock();
+        }
+    }
+
+    /**
+     * Skip drawing the black container background, and the window background if the
+     * container covers the window, while in fullscreen and an opaque child matches the
+     * container without margins, see {@link View#isOpaque()}. The backgrounds are swapped
+     * along with the layout change, so no extra layout pass is needed, and restored on exit.
+     */
+    public void setOverdrawAware(boolean enabled) {
+        mAvoidOverdraw = enabled;
+
+        if (enabled) {
+            mOverdrawController.update(isFullscreen() && !mState.isTransitioning());
+        } else {
+            mOverdrawController.restore();
+        }
+    }
+
+    /**
+     * @return number of layout passes since the last fullscreen change
+     */
+    public int getLayoutPassCount() {
+        return mLayoutPassCount;
+    }
+
+    private void resetCounters() {
+        mLayoutPassCount = 0;
+        mChangeNanos = 0;
+        mVisitedViews = 0;
+        mPaddingCalls = 0;
+        mLayoutParamsCalls = 0;
+    }
+
+    private void reportChange() {
+        mMetricsListener.onFullscreenChange(isFullscreen(), mChangeNanos, mVisitedViews, mPaddingCalls, mLayoutParamsCalls);
     }
 
     private void notifiyListener() {
-        if (mFullscreenListener != null) {
-            mFullscreenListener.onFullscreenChanged(mIsFullscreen);
+        boolean isFullscreen = isFullscreen();
+
+        for (Object listener : mFullscreenListeners.snapshot()) {
+            ((OnFullscreenChangeListener) listener).onFullscreenChanged(isFullscreen);
         }
     }
 
-    @SuppressWarnings("deprecation")
+    /* User interaction */
+
     @Override
-    protected boolean fitSystemWindows(Rect insets) {
-        if (mWindowInsets == null) {
-            mWindowInsets = insets;
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        if (isPromoted()) {
+            mSystemUiHelper.onUserInteraction();
+        }
+
+        return super.dispatchTouchEvent(event);
+    }
+
+    @Override
+    public boolean dispatchKeyEvent(KeyEvent event) {
+        if (isPromoted()) {
+            mSystemUiHelper.onUserInteraction();
+        }
+
+        return super.dispatchKeyEvent(event);
+    }
+
+    @Override
+    public boolean dispatchGenericMotionEvent(MotionEvent event) {
+        if (isPromoted()) {
+            mSystemUiHelper.onUserInteraction();
+        }
+
+        return super.dispatchGenericMotionEvent(event);
+    }
+
+    /* Transition */
+
+    private void changeLayout(boolean isFullscreen) {
+        if (!isFullscreen) {
+            // Uncovered while leaving fullscreen
+            mOverdrawController.restore();
+        }
+
+        if (mState.isTransitioning()) {
+            // Continue, or reverse, the running transition
+            mState.setFullscreen(isFullscreen, true);
+            getTransition().setTarget(isFullscreen);
+            return;
+        }
+
+        if (mTransitionDuration > 0 && prepareTransitionTarget(isFullscreen)) {
+            mState.setFullscreen(isFullscreen, true);
+            getTransition().start(isFullscreen, mTransitionTarget, mTransitionDuration);
+            return;
+        }
+
+        mState.setFullscreen(isFullscreen, false);
+        commitLayout();
+
+        // Notify
+        notifiyListener();
+    }
+
+    /**
+     * @return false if the transition target is unknown and the layout has to change instantly
+     */
+    private boolean prepareTransitionTarget(boolean isFullscreen) {
+        if (!(getParent() instanceof View) || getWidth() == 0 || getHeight() == 0) {
+            return false;
+        }
+
+        if (isFullscreen) {
+            View parent = (View) getParent();
+
+            // Remember embedded bounds as target of the way back
+            mEmbeddedBounds.set(getLeft(), getTop(), getRight(), getBottom());
+            mTransitionTarget.set(0, 0, parent.getWidth(), parent.getHeight());
+        } else if (mEmbeddedBounds.width() > 0 && mEmbeddedBounds.height() > 0) {
+            mTransitionTarget.set(mEmbeddedBounds);
         } else {
-            // Do not update top inset if set once
-            // That's important if you handle orientation changes by yourself,
-            // because the actionbar height can differ and is not correctly updated
-            // by the system
-            mWindowInsets.right = insets.right;
-            mWindowInsets.left = insets.left;
-            mWindowInsets.bottom = insets.bottom;
+            return false;
         }
 
-        updateSystemUiPadding();
+        return true;
+    }
+
+    private void captureEmbeddedLayoutParams() {
+        ViewGroup.LayoutParams params = getLayoutParams();
+
+        if (params != null && params != mFullscreenLayoutParams) {
+            mEmbeddedLayoutParams = params;
+        }
+    }
+
+    private void commitLayout() {
+        if (mEmbeddedLayoutParams == null) {
+            // Changed before being attached, e.g. while restoring the state
+            captureEmbeddedLayoutParams();
+        }
+
+        if (mPreserveSurface) {
+            mSurfacePreserver.lock();
+        }
+
+        beginLayoutBatch();
+
+        try {
+            setLayoutParamsIfChanged(isFullscreen() ? mFullscreenLayoutParams : mEmbeddedLayoutParams);
+            selectWindowInsets();
+            updateSystemUiPadding();
+
+            if (mAvoidOverdraw) {
+                // Swapped backgrounds request the layout pass of this change
+                mOverdrawController.update(isFullscreen());
+            }
+        } finally {
+            endLayoutBatch();
+        }
+    }
+
+    private FullscreenTransition getTransition() {
+        if (mTransition == null) {
+            mTransition = new FullscreenTransition(this, new TransitionCallback());
+        }
+
+        return mTransition;
+    }
+
+    private void endTransition() {
+        if (mTransition != null) {
+            mTransition.end();
+        }
+    }
+
+    private class CommitRequestRunnable implements Runnable {
+        @Override
+        public void run() {
+            commitRequest();
+        }
+    }
+
+    private class TransitionCallback implements FullscreenTransition.Callback {
+        @Override
+        public void onTransitionEnd(boolean isCommitted) {
+            mState.finishTransition();
+
+            if (isCommitted) {
+                long start = System.nanoTime();
+                commitLayout();
+                mChangeNanos += System.nanoTime() - start;
+                reportChange();
+
+                // Notify
+                notifiyListener();
+            }
+        }
+    }
+
+    /* System UI */
+
+    private class SystemUiForwarder implements OnSystemUiChangeListener {
+        @Override
+        public void onSystemUiChanged(boolean isShowing) {
+            for (Object listener : mSystemUiListeners.snapshot()) {
+                ((OnSystemUiChangeListener) listener).onSystemUiChanged(isShowing);
+            }
+        }
+    }
+
+    /* Layout batching */
+
+    @Override
+    public void requestLayout() {
+        if (mIsBatchingLayout) {
+            // Issued once the batch ends
+            mHasPendingLayout = true;
+        } else {
+            super.requestLayout();
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+
+        mLayoutPassCount++;
+
+        if (mPreserveSurface) {
+            mSurfacePreserver.onLayout();
+        }
+    }
+
+    /**
+     * Layout requests are held back until {@link #endLayoutBatch()}, which has to be
+     * called in a finally block, otherwise an exception would swallow all later requests.
+     */
+    private void beginLayoutBatch() {
+        mIsBatchingLayout = mSingleLayoutPass;
+    }
+
+    private void endLayoutBatch() {
+        mIsBatchingLayout = false;
+
+        if (mHasPendingLayout) {
+            mHasPendingLayout = false;
+            super.requestLayout();
+        }
+    }
+
+    private void setLayoutParamsIfChanged(ViewGroup.LayoutParams params) {
+        if (params != null && getLayoutParams() != params) {
+            mLayoutParamsCalls++;
+            setLayoutParams(params);
+        }
+    }
+
+    private void setPaddingIfChanged(View view, int[] padding) {
+        if (view.getPaddingLeft() != padding[0]
+                || view.getPaddingTop() != padding[1]
+                || view.getPaddingRight() != padding[2]
+                || view.getPaddingBottom() != padding[3]) {
+            mPaddingCalls++;
+            view.setPadding(padding[0], padding[1], padding[2], padding[3]);
+        }
+    }
+
+    /* System UI fitting */
+
+    @TargetApi(Build.VERSION_CODES.KITKAT_WATCH)
+    @Override
+    public WindowInsets onApplyWindowInsets(WindowInsets insets) {
+        if (insets.isConsumed()) {
+            return insets;
+        }
+
+        int left = insets.getSystemWindowInsetLeft();
+        int top = insets.getSystemWindowInsetTop();
+        int right = insets.getSystemWindowInsetRight();
+        int bottom = insets.getSystemWindowInsetBottom();
+
+        if (!isSameInsets(insets, mLastInsets)) {
+            // Consuming allocates new insets, so do it only once per distinct insets
+            mLastInsets = insets;
+            mConsumedInsets = insets.consumeSystemWindowInsets();
+        }
+
+        applyWindowInsets(left, top, right, bottom);
+
+        return mConsumedInsets;
+    }
+
+    /**
+     * @return true if the insets are equal in all fields children can read, so the insets
+     *         consumed from the other ones can be handed down instead
+     */
+    @TargetApi(Build.VERSION_CODES.KITKAT_WATCH)
+    private static boolean isSameInsets(WindowInsets insets, WindowInsets other) {
+        if (insets == other) {
+            return true;
+        }
+
+        if (other == null
+                || insets.getSystemWindowInsetLeft() != other.getSystemWindowInsetLeft()
+                || insets.getSystemWindowInsetTop() != other.getSystemWindowInsetTop()
+                || insets.getSystemWindowInsetRight() != other.getSystemWindowInsetRight()
+                || insets.getSystemWindowInsetBottom() != other.getSystemWindowInsetBottom()
+                || insets.isRound() != other.isRound()) {
+            return false;
+        }
+
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP || isSameStableInsets(insets, other);
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static boolean isSameStableInsets(WindowInsets insets, WindowInsets other) {
+        return insets.getStableInsetLeft() == other.getStableInsetLeft()
+                && insets.getStableInsetTop() == other.getStableInsetTop()
+                && insets.getStableInsetRight() == other.getStableInsetRight()
+                && insets.getStableInsetBottom() == other.getStableInsetBottom();
+    }
+
+    /**
+     * Legacy insets dispatch used below {@link Build.VERSION_CODES#KITKAT_WATCH}.
+     */
+    @SuppressWarnings("deprecation")
+    @Override
+    protected boolean fitSystemWindows(Rect insets) {
+        applyWindowInsets(insets.left, insets.top, insets.right, insets.bottom);
 
         return true;
     }
 
+    /**
+     * Pad with the insets known for the new rotation in the first layout pass after a
+     * rotation, instead of waiting for the insets dispatch of the system. The dispatch
+     * only causes another pass if it reports different insets.
+     */
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+
+        if (selectWindowInsets() && !mState.isTransitioning()) {
+            beginLayoutBatch();
+
+            try {
+                updateSystemUiPadding();
+            } finally {
+                endLayoutBatch();
+            }
+        }
+    }
+
+    /**
+     * @return true if the insets cached for the rotation and fullscreen state differ
+     */
+    private boolean selectWindowInsets() {
+        if (mWindowManager == null) {
+            mWindowManager = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+        }
+
+        // Surface.ROTATION_ values match the rotations of the inset state
+        return mWindowInsets.select(mWindowManager.getDefaultDisplay().getRotation(), isFullscreen());
+    }
+
+    private void applyWindowInsets(int left, int top, int right, int bottom) {
+        // A running transition applies the insets on commit
+        if (mWindowInsets.update(left, top, right, bottom) && !mState.isTransitioning()) {
+            beginLayoutBatch();
+
+            try {
+                updateSystemUiPadding();
+            } finally {
+                endLayoutBatch();
+            }
+        }
+    }
+
     @SuppressWarnings("deprecation")
     // suppress deprecation for statement is not working (//noinspection deprecation)
     private void updateSystemUiPadding() {
-        if (mWindowInsets == null) {
+        if (!mWindowInsets.isSet()) {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT_WATCH) {
                 requestApplyInsets();
             } else {
@@ -193,50 +1056,31 @@ public class LeanbackLayout extends FrameLayout {
         }
 
         fitSystemUiOfContainer();
-        fitSystemUiOfChildren(getChildAt(0));
+        fitSystemUiOfChildren();
     }
 
     private void fitSystemUiOfContainer() {
-        if (mIsFullscreen) {
-            // Use full screen
-            this.setPadding(0, 0, 0, 0);
-        } else {
-            // Fits system UI
-            this.setPadding(mWindowInsets.left, mWindowInsets.top, mWindowInsets.right, mWindowInsets.bottom);
-        }
+        mWindowInsets.getContainerPadding(isFullscreen(), mPadding);
+        setPaddingIfChanged(this, mPadding);
     }
 
     /**
-     * Traverse all children in view hierarchy and recalculate paddings to fit system UI
+     * Recalculate paddings of all children which fit system windows
      */
-    private void fitSystemUiOfChildren(View view) {
-        fitSystemOfChild(view);
+    private void fitSystemUiOfChildren() {
+        if (LeanbackTrace.ENABLED) {
+            LeanbackTrace.begin(LeanbackTrace.FIT_CHILDREN);
+        }
 
-        if (view instanceof ViewGroup) {
-            // Travers children of ViewGroup
-            ViewGroup parent = (ViewGroup) view;
+        mWindowInsets.getChildPadding(isFullscreen(), mPadding);
+        mVisitedViews += mFittingViews.update();
 
-            for (int i = 0; i < parent.getChildCount(); i++) {
-                View child = parent.getChildAt(i);
-                fitSystemUiOfChildren(child);
-            }
+        for (int i = 0; i < mFittingViews.size(); i++) {
+            setPaddingIfChanged(mFittingViews.get(i), mPadding);
         }
-    }
 
-    /**
-     * Set padding to fit system UI for a child view.
-     * If view has to fit system UI and is in fullscreen -> recalculate padding.
-     * Otherwise reset it.
-     */
-    private void fitSystemOfChild(View view) {
-        if (view.getFitsSystemWindows()) {
-            if (mIsFullscreen) {
-                // Fits system UI in fullscreen mode
-                view.setPadding(mWindowInsets.left, mWindowInsets.top, mWindowInsets.right, mWindowInsets.bottom);
-            } else {
-                // Reset
-                view.setPadding(0, 0, 0, 0);
-            }
+        if (LeanbackTrace.ENABLED) {
+            LeanbackTrace.end();
         }
     }
 }
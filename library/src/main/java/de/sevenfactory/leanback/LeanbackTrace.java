@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.lang.reflect.Method;
+
+/**
+ * Trace sections of the library for systrace and Perfetto, named {@code Leanback#...}.
+ * <p/>
+ * Tracing is opt-in at build time with {@code -PleanbackTrace=true}. Call sites check
+ * {@link #ENABLED}, a compile time constant, so disabled tracing compiles to nothing.
+ * Async slices are resolved via reflection, {@code Trace.beginAsyncSection} is public on
+ * API 29+ only, below the hidden {@code Trace.asyncTraceBegin/End} is used.
+ */
+final class LeanbackTrace {
+
+    static final boolean ENABLED = BuildConfig.TRACE;
+
+    // Sections
+    static final String ENTER_FULLSCREEN = "Leanback#enterFullscreen";
+    static final String EXIT_FULLSCREEN  = "Leanback#exitFullscreen";
+    static final String FIT_CHILDREN     = "Leanback#fitSystemUiOfChildren";
+    static final String SET_SYSTEM_UI    = "Leanback#setSystemUiFlags";
+    static final String SENSOR_SAMPLE    = "Leanback#onSensorSample";
+
+    // Async slices
+    static final String AUTO_HIDE_DELAY      = "Leanback#autoHideDelay";
+    static final String SYSTEM_UI_ROUND_TRIP = "Leanback#systemUiRoundTrip";
+
+    // Trace.TRACE_TAG_APP
+    private static final long TRACE_TAG_APP = 1L << 12;
+
+    // Build.VERSION_CODES.Q
+    private static final int PUBLIC_ASYNC_API = 29;
+
+    private static boolean sIsResolved;
+    private static boolean sIsPublicAsync;
+    private static Method  sAsyncBegin;
+    private static Method  sAsyncEnd;
+
+    private LeanbackTrace() {
+    }
+
+    static void begin(String sectionName) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(sectionName);
+        }
+    }
+
+    static void end() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * Begin an async slice, which may end on another message or thread.
+     */
+    static void beginAsync(String sliceName, int cookie) {
+        invokeAsync(true, sliceName, cookie);
+    }
+
+    static void endAsync(String sliceName, int cookie) {
+        invokeAsync(false, sliceName, cookie);
+    }
+
+    /* Helpers */
+
+    private static synchronized void invokeAsync(boolean begin, String sliceName, int cookie) {
+        if (!sIsResolved) {
+            sIsResolved = true;
+            resolveAsync();
+        }
+
+        Method method = begin ? sAsyncBegin : sAsyncEnd;
+
+        if (method == null) {
+            return;
+        }
+
+        try {
+            if (sIsPublicAsync) {
+                method.invoke(null, sliceName, cookie);
+            } else {
+                method.invoke(null, TRACE_TAG_APP, sliceName, cookie);
+            }
+        } catch (Exception e) {
+            // Not available on this device, stop trying
+            sAsyncBegin = null;
+            sAsyncEnd = null;
+        }
+    }
+
+    private static void resolveAsync() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            return;
+        }
+
+        try {
+            if (Build.VERSION.SDK_INT >= PUBLIC_ASYNC_API) {
+                sIsPublicAsync = true;
+                sAsyncBegin = Trace.class.getMethod("beginAsyncSection", String.class, int.class);
+                sAsyncEnd   = Trace.class.getMethod("endAsyncSection", String.class, int.class);
+            } else {
+                sAsyncBegin = Trace.class.getMethod("asyncTraceBegin", long.class, String.class, int.class);
+                sAsyncEnd   = Trace.class.getMethod("asyncTraceEnd", long.class, String.class, int.class);
+            }
+        } catch (NoSuchMethodException e) {
+            sAsyncBegin = null;
+            sAsyncEnd = null;
+        }
+    }
+}
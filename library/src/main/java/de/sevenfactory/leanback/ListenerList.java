@@ -0,0 +1,83 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import java.util.Arrays;
+
+/**
+ * Copy-on-write list of listeners. Adding and removing copies the array, dispatching
+ * iterates over an immutable snapshot and therefore allocates nothing and is safe
+ * against listeners which add or remove listeners while being notified.
+ */
+final class ListenerList<T> {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private Object[] mListeners = EMPTY;
+
+    void add(T listener) {
+        if (listener == null || indexOf(listener) >= 0) {
+            return;
+        }
+
+        Object[] listeners = Arrays.copyOf(mListeners, mListeners.length + 1);
+        listeners[mListeners.length] = listener;
+
+        mListeners = listeners;
+    }
+
+    void remove(T listener) {
+        int index = indexOf(listener);
+
+        if (index < 0) {
+            return;
+        }
+
+        Object[] listeners = new Object[mListeners.length - 1];
+        System.arraycopy(mListeners, 0, listeners, 0, index);
+        System.arraycopy(mListeners, index + 1, listeners, index, listeners.length - index);
+
+        mListeners = listeners;
+    }
+
+    /**
+     * @return snapshot of the current listeners, never modified afterwards
+     */
+    Object[] snapshot() {
+        return mListeners;
+    }
+
+    /* Helpers */
+
+    private int indexOf(T listener) {
+        for (int i = 0; i < mListeners.length; i++) {
+            if (mListeners[i] == listener) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+/**
+ * Listener for performance metrics of fullscreen and system UI changes,
+ * e.g. to feed them into telemetry. Called on the main thread.
+ */
+public interface MetricsListener {
+
+    /**
+     * Default listener, which ignores all metrics.
+     */
+    MetricsListener NONE = new MetricsListener() {
+        @Override
+        public void onFullscreenChange(boolean isFullscreen, long durationNanos, int visitedViews, int paddingCalls, int layoutParamsCalls) {
+            // Ignore
+        }
+
+        @Override
+        public void onSystemUiRoundTrip(boolean isSystemUiVisible, long latencyNanos) {
+            // Ignore
+        }
+    };
+
+    /**
+     * Called once the layout of a fullscreen change is applied.
+     *
+     * @param isFullscreen      the new state
+     * @param durationNanos     wall time spent in the change on the main thread
+     * @param visitedViews      number of views visited to fit the system UI
+     * @param paddingCalls      number of {@code setPadding()} calls
+     * @param layoutParamsCalls number of {@code setLayoutParams()} calls
+     */
+    void onFullscreenChange(boolean isFullscreen, long durationNanos, int visitedViews, int paddingCalls, int layoutParamsCalls);
+
+    /**
+     * Called when the system confirmed requested system UI flags.
+     *
+     * @param isSystemUiVisible the new visibility
+     * @param latencyNanos      time between the request and the confirming callback
+     */
+    void onSystemUiRoundTrip(boolean isSystemUiVisible, long latencyNanos);
+}
@@ -0,0 +1,45 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+/**
+ * Listener for frame statistics around fullscreen transitions and system UI
+ * auto-hide. Called on the main thread.
+ */
+public interface OnFrameStatsListener {
+
+    // Triggers of a tracked window
+    int TRIGGER_ENTER_FULLSCREEN    = 0;
+    int TRIGGER_EXIT_FULLSCREEN     = 1;
+    int TRIGGER_SYSTEM_UI_AUTO_HIDE = 2;
+
+    /**
+     * @param trigger         one of the {@code TRIGGER_*} constants
+     * @param frameCount      number of frames rendered within the tracked window
+     * @param jankyFrameCount number of frames which took longer than the frame budget
+     * @param worstFrameNanos duration of the longest frame
+     */
+    void onFrameStats(int trigger, int frameCount, int jankyFrameCount, long worstFrameNanos);
+}
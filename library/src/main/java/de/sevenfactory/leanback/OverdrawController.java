@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import android.graphics.drawable.Drawable;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.Window;
+
+/**
+ * Drops backgrounds which are completely hidden behind an opaque child, i.e. the
+ * background of the container and, if the container covers the whole window, the window
+ * background. Both are restored as soon as the child no longer covers them.
+ * <p/>
+ * Swapping backgrounds requests a layout, so coverage is decided from the layout params
+ * before the layout of a fullscreen change instead of from the bounds after it. The swap
+ * then joins the layout pass of the change.
+ */
+final class OverdrawController {
+
+    private final ViewGroup mContainer;
+    private final int[]     mLocation = new int[2];
+
+    private Window mWindow;
+
+    // Dropped backgrounds
+    private boolean  mIsApplied;
+    private Drawable mContainerBackground;
+    private Drawable mWindowBackground;
+    private boolean  mIsWindowBackgroundDropped;
+
+    OverdrawController(ViewGroup container) {
+        mContainer = container;
+    }
+
+    /* Package local */
+
+    /**
+     * Call when the layout params of the container change, before the layout pass.
+     * Backgrounds are only dropped in fullscreen, where the container fills its parent
+     * without padding.
+     */
+    void update(boolean isFullscreen) {
+        boolean isCovered = isFullscreen && isFilledByOpaqueChild();
+
+        if (isCovered == mIsApplied) {
+            return;
+        }
+
+        if (isCovered) {
+            apply();
+        } else {
+            restore();
+        }
+    }
+
+    /**
+     * Restore dropped backgrounds.
+     */
+    void restore() {
+        if (!mIsApplied) {
+            return;
+        }
+
+        mIsApplied = false;
+        mContainer.setBackground(mContainerBackground);
+        mContainerBackground = null;
+
+        if (mIsWindowBackgroundDropped) {
+            mIsWindowBackgroundDropped = false;
+            getWindow().setBackgroundDrawable(mWindowBackground);
+            mWindowBackground = null;
+        }
+    }
+
+    /* Private */
+
+    private void apply() {
+        mIsApplied = true;
+        mContainerBackground = mContainer.getBackground();
+        mContainer.setBackground(null);
+
+        if (isCoveringWindow()) {
+            Window window = getWindow();
+
+            mIsWindowBackgroundDropped = true;
+            mWindowBackground = window.getDecorView().getBackground();
+            window.setBackgroundDrawable(null);
+        }
+    }
+
+    private boolean isFilledByOpaqueChild() {
+        for (int i = 0, count = mContainer.getChildCount(); i < count; i++) {
+            View child = mContainer.getChildAt(i);
+
+            if (child.getVisibility() == View.VISIBLE
+                    && child.isOpaque()
+                    && child.getAlpha() == 1f
+                    && isMatchingParent(child)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * The parent keeps its bounds while the container changes to fullscreen, so the
+     * bounds of the last layout pass are still valid.
+     */
+    private boolean isCoveringWindow() {
+        if (!(mContainer.getParent() instanceof View)) {
+            return false;
+        }
+
+        View parent = (View) mContainer.getParent();
+        View decorView = getWindow().getDecorView();
+
+        if (parent.getPaddingLeft() != 0 || parent.getPaddingTop() != 0
+                || parent.getPaddingRight() != 0 || parent.getPaddingBottom() != 0) {
+            return false;
+        }
+
+        parent.getLocationInWindow(mLocation);
+
+        return mLocation[0] <= 0
+                && mLocation[1] <= 0
+                && mLocation[0] + parent.getWidth() >= decorView.getWidth()
+                && mLocation[1] + parent.getHeight() >= decorView.getHeight();
+    }
+
+    private static boolean isMatchingParent(View view) {
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+
+        if (params == null
+                || params.width != ViewGroup.LayoutParams.MATCH_PARENT
+                || params.height != ViewGroup.LayoutParams.MATCH_PARENT) {
+            return false;
+        }
+
+        if (params instanceof ViewGroup.MarginLayoutParams) {
+            ViewGroup.MarginLayoutParams margins = (ViewGroup.MarginLayoutParams) params;
+
+            return margins.leftMargin == 0 && margins.topMargin == 0
+                    && margins.rightMargin == 0 && margins.bottomMargin == 0;
+        }
+
+        return true;
+    }
+
+    private Window getWindow() {
+        if (mWindow == null) {
+            mWindow = FullscreenCoordinator.requireActivity(mContainer.getContext()).getWindow();
+        }
+
+        return mWindow;
+    }
+}
@@ -25,77 +25,353 @@
 package de.sevenfactory.leanback;
 
 import android.app.Activity;
-import android.content.Context;
 import android.content.pm.ActivityInfo;
-import android.hardware.Sensor;
-import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
-import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
 
-class RotationHelper implements SensorEventListener {
-    private final static float MIN_ROTATION = 0.8f;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import de.sevenfactory.leanback.core.OrientationEngine;
+import de.sevenfactory.leanback.core.SensorSamplingPolicy;
+import de.sevenfactory.leanback.core.SensorTrace;
+import de.sevenfactory.leanback.core.SensorTraceWriter;
+
+/**
+ * Observes the device rotation. Samples are received and filtered on a background thread
+ * which lives from {@link #resume()} to {@link #pause()}, the main thread is only involved
+ * when the requested orientation has to change.
+ */
+class RotationHelper implements SensorSource.Callback {
+    private final static String TAG = "RotationHelper";
+    
+    // Deliveries closer to each other belong to the same wakeup, i.e. a flushed batch
+    private final static long WAKEUP_GAP_MILLIS = 2;
     
-    private int mCurrentOrientation;
+    // Processing a sample takes microseconds, a pause waits this long at most
+    private final static long JOIN_TIMEOUT_MILLIS = 50;
+    
+    private final OrientationEngine    mEngine = new OrientationEngine();
+    private final SensorSamplingPolicy mPolicy = new SensorSamplingPolicy();
+    
+    // Written on the main thread, read on the sensor thread
+    private volatile boolean mIsFullscreen;
+    private volatile boolean mIsResumed;
+    
+    // Session stats
+    private long mSessionStart;
+    private long mLastDelivery;
+    private int  mEventCount;
+    private int  mWakeupCount;
+    private int  mRegistrationCount;
     
     private Activity      mActivity;
-    private SensorManager mSensorManager;
-    private Sensor        mSensor;
+    private SensorSource  mSource;
+    private boolean       mIsSourceLookedUp;
+    
+    // Recording, the writer is used and closed by the sensor thread
+    private File                       mTraceFile;
+    private volatile SensorTraceWriter mTraceWriter;
+    
+    // Sensor thread, running while resumed
+    private HandlerThread mSensorThread;
+    private Handler       mSensorHandler;
+    
+    // Guards (re)registrations of the sensor thread against a concurrent pause
+    private final Object mRegistrationLock = new Object();
+    
+    private final Handler  mMainHandler        = new Handler(Looper.getMainLooper());
+    private final Runnable mOrientationChanged = new OrientationChangedRunnable();
+    private final Runnable mUpdateIdle         = new UpdateIdleRunnable();
     
     public RotationHelper(Activity activity) {
         mActivity = activity;
-        
-        mSensorManager = (SensorManager) activity.getSystemService(Context.SENSOR_SERVICE);
-        mSensor        = mSensorManager.getDefaultSensor(Sensor.TYPE_GRAVITY);
     }
     
     public void resume() {
-        if (mSensorManager != null) {
-            mSensorManager.registerListener(this, mSensor, SensorManager.SENSOR_DELAY_NORMAL);
+        // Looked up on the first resume, off the startup path of the activity
+        if (!mIsSourceLookedUp) {
+            mIsSourceLookedUp = true;
+            
+            if (mSource == null) {
+                mSource = HardwareSensorSource.create(mActivity);
+            }
+            
+            if (mSource == null) {
+                Log.w(TAG, "Neither gravity sensor nor accelerometer available, rotation is not observed");
+            }
+        }
+        
+        // Samples from before the pause are outdated
+        mEngine.reset();
+        mPolicy.reset();
+        
+        mSessionStart      = SystemClock.elapsedRealtime();
+        mLastDelivery      = 0;
+        mEventCount        = 0;
+        mWakeupCount       = 0;
+        mRegistrationCount = 0;
+        
+        mIsResumed = true;
+        
+        if (mSource != null) {
+            openTrace();
+            
+            mSensorThread = new HandlerThread("RotationHelper", Process.THREAD_PRIORITY_BACKGROUND);
+            mSensorThread.start();
+            mSensorHandler = new Handler(mSensorThread.getLooper());
+            
+            synchronized (mRegistrationLock) {
+                register();
+            }
         }
     }
     
-    public void pause() {
-        if (mSensorManager != null) {
-            mSensorManager.unregisterListener(this, mSensor);
+    /**
+     * @return sensor usage since the last {@link #resume()}
+     */
+    public SensorSessionStats pause() {
+        synchronized (mRegistrationLock) {
+            mIsResumed = false;
+            unregister();
         }
+        
+        mMainHandler.removeCallbacks(mOrientationChanged);
+        
+        if (mSensorThread != null) {
+            // Close the trace and quit once the queued samples are processed
+            mSensorHandler.post(new FinishRunnable(mTraceWriter));
+            mTraceWriter = null;
+            joinSensorThread();
+            
+            mSensorThread  = null;
+            mSensorHandler = null;
+        }
+        
+        return new SensorSessionStats(SystemClock.elapsedRealtime() - mSessionStart, mEventCount, mWakeupCount, mRegistrationCount);
     }
     
-    @Override
-    public void onSensorChanged(final SensorEvent sensorEvent) {
-        float x = sensorEvent.values[0] / SensorManager.GRAVITY_EARTH;
-        float y = sensorEvent.values[1] / SensorManager.GRAVITY_EARTH;
-        
-        // Rotate only on large movements
-        if (Math.abs(x) > MIN_ROTATION || Math.abs(y) > MIN_ROTATION) {
-            int orientation = getOrientation(x, y);
-            if (orientation != mCurrentOrientation) {
-                // The returned orientation isn't used
-                // Instead, the orientation is reset to the user preference
-                mActivity.setRequestedOrientation(ActivityInfo.SCREEN_ORIENTATION_USER);
-                mCurrentOrientation = orientation;
-            }
+    /**
+     * Sampling slows down while in fullscreen landscape.
+     */
+    void setFullscreen(boolean isFullscreen) {
+        mIsFullscreen = isFullscreen;
+        
+        if (mSensorHandler != null) {
+            mSensorHandler.post(mUpdateIdle);
         }
     }
     
+    /**
+     * Use the given source instead of the hardware sensors, e.g. to replay a trace.
+     * Takes effect with the next {@link #resume()}.
+     */
+    void setSensorSource(SensorSource source) {
+        mSource = source;
+        mIsSourceLookedUp = source != null;
+    }
+    
+    /**
+     * Record the samples of each session to the given file, null to stop recording.
+     * The file is overwritten on every {@link #resume()}.
+     *
+     * @see SensorTrace
+     */
+    void setTraceFile(File file) {
+        mTraceFile = file;
+    }
+    
     @Override
-    public void onAccuracyChanged(final Sensor sensor, final int i) {
-        // Not used
+    public void onSample(float rawX, float rawY, float rawZ, long timestampNanos) {
+        if (LeanbackTrace.ENABLED) {
+            LeanbackTrace.begin(LeanbackTrace.SENSOR_SAMPLE);
+        }
+        
+        countDelivery();
+        record(rawX, rawY, rawZ, timestampNanos);
+        
+        float x = rawX / SensorTrace.GRAVITY_EARTH;
+        float y = rawY / SensorTrace.GRAVITY_EARTH;
+        
+        // Rotate only once a new orientation is stable
+        if (mEngine.onSample(x, y, timestampNanos)) {
+            mMainHandler.post(mOrientationChanged);
+            updateIdle();
+        }
+        
+        // Adapt sampling rate to motion
+        if (mPolicy.onSample(x, y, timestampNanos)) {
+            reregister();
+        }
+        
+        if (LeanbackTrace.ENABLED) {
+            LeanbackTrace.end();
+        }
     }
     
     /**
-     * Returns a rotation for given x,y orientation parameters
+     * Configure smoothing of the orientation detection.
+     *
+     * @see OrientationEngine
      */
-    private int getOrientation(float x, float y) {
-        if (Math.abs(x) > Math.abs(y)) {
-            return x > 0
-                    ? ActivityInfo.SCREEN_ORIENTATION_LANDSCAPE
-                    : ActivityInfo.SCREEN_ORIENTATION_REVERSE_LANDSCAPE;
+    void setOrientationFilter(final long filterTimeConstantMillis, final float hysteresisDegrees, final long dwellTimeMillis) {
+        Runnable configure = new Runnable() {
+            @Override
+            public void run() {
+                mEngine.setFilterTimeConstant(filterTimeConstantMillis);
+                mEngine.setHysteresis(hysteresisDegrees);
+                mEngine.setDwellTime(dwellTimeMillis);
+            }
+        };
+        
+        // The engine is owned by the sensor thread while it runs
+        if (mSensorHandler != null) {
+            mSensorHandler.post(configure);
         } else {
-            return y > 0
-                    ? ActivityInfo.SCREEN_ORIENTATION_PORTRAIT
-                    : ActivityInfo.SCREEN_ORIENTATION_REVERSE_PORTRAIT;
+            configure.run();
+        }
+    }
+    
+    /* Helpers */
+    
+    private void updateIdle() {
+        int orientation = mEngine.getOrientation();
+        boolean isLandscape = orientation == OrientationEngine.ORIENTATION_LANDSCAPE
+                || orientation == OrientationEngine.ORIENTATION_REVERSE_LANDSCAPE;
+        
+        if (mPolicy.setIdle(mIsFullscreen && isLandscape)) {
+            reregister();
+        }
+    }
+    
+    private void reregister() {
+        synchronized (mRegistrationLock) {
+            if (mIsResumed) {
+                // Restarts with the new rates
+                register();
+            }
+        }
+    }
+    
+    private void register() {
+        if (mSource == null) {
+            return;
+        }
+        
+        mSource.start(this, mPolicy.getSamplingPeriodUs(), mPolicy.getMaxReportLatencyUs(), mSensorHandler);
+        mRegistrationCount++;
+    }
+    
+    private void unregister() {
+        if (mSource != null) {
+            mSource.stop();
+        }
+    }
+    
+    /* Recording */
+    
+    private void openTrace() {
+        if (mTraceFile == null) {
+            return;
+        }
+        
+        try {
+            mTraceWriter = new SensorTraceWriter(new BufferedWriter(new FileWriter(mTraceFile)), mSource.getName());
+        } catch (IOException e) {
+            Log.w(TAG, "Can't record sensor trace to " + mTraceFile, e);
+        }
+    }
+    
+    private void record(float x, float y, float z, long timestampNanos) {
+        SensorTraceWriter writer = mTraceWriter;
+        
+        if (writer == null) {
+            return;
+        }
+        
+        try {
+            writer.write(timestampNanos, x, y, z);
+        } catch (IOException e) {
+            Log.w(TAG, "Recording of the sensor trace failed", e);
+            mTraceWriter = null;
+            closeTrace(writer);
+        }
+    }
+    
+    private void closeTrace(SensorTraceWriter writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Can't finish sensor trace " + mTraceFile, e);
+        }
+    }
+    
+    private void countDelivery() {
+        long now = SystemClock.elapsedRealtime();
+        
+        if (mEventCount == 0 || now - mLastDelivery > WAKEUP_GAP_MILLIS) {
+            mWakeupCount++;
+        }
+        
+        mEventCount++;
+        mLastDelivery = now;
+    }
+    
+    /**
+     * Wait for the sensor thread to finish, but never block the main thread for long.
+     */
+    private void joinSensorThread() {
+        try {
+            mSensorThread.join(JOIN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /* Runnables */
+    
+    /**
+     * Quits the sensor thread like {@link HandlerThread#quitSafely()}, which is not
+     * available below API 18, and closes the trace on the thread writing it.
+     */
+    private class FinishRunnable implements Runnable {
+        private final SensorTraceWriter mWriter;
+        
+        FinishRunnable(SensorTraceWriter writer) {
+            mWriter = writer;
+        }
+        
+        @Override
+        public void run() {
+            if (mWriter != null) {
+                closeTrace(mWriter);
+            }
+            
+            Looper.myLooper().quit();
+        }
+    }
+    
+    private class OrientationChangedRunnable implements Runnable {
+        @Override
+        public void run() {
+            if (mIsResumed) {
+                // The detected orientation isn't used
+                // Instead, the orientation is reset to the user preference
+                mActivity.setRequestedOrientation(ActivityInfo.SCREEN_ORIENTATION_USER);
+            }
+        }
+    }
+    
+    private class UpdateIdleRunnable implements Runnable {
+        @Override
+        public void run() {
+            updateIdle();
         }
     }
-
-
 }
@@ -0,0 +1,83 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+/**
+ * Sensor usage of the orientation detection between a resume and a pause
+ * of the activity.
+ */
+public final class SensorSessionStats {
+
+    private final long mDurationMillis;
+    private final int  mEventCount;
+    private final int  mWakeupCount;
+    private final int  mRegistrationCount;
+
+    SensorSessionStats(long durationMillis, int eventCount, int wakeupCount, int registrationCount) {
+        mDurationMillis    = durationMillis;
+        mEventCount        = eventCount;
+        mWakeupCount       = wakeupCount;
+        mRegistrationCount = registrationCount;
+    }
+
+    /**
+     * @return duration of the session
+     */
+    public long getDurationMillis() {
+        return mDurationMillis;
+    }
+
+    /**
+     * @return number of delivered sensor events
+     */
+    public int getEventCount() {
+        return mEventCount;
+    }
+
+    /**
+     * @return number of times sensor events woke up the sensor thread,
+     *         batched events are delivered with a single wakeup
+     */
+    public int getWakeupCount() {
+        return mWakeupCount;
+    }
+
+    /**
+     * @return number of sensor (re-)registrations due to sampling rate changes
+     */
+    public int getRegistrationCount() {
+        return mRegistrationCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SensorSessionStats{"
+                + "durationMillis=" + mDurationMillis
+                + ", eventCount=" + mEventCount
+                + ", wakeupCount=" + mWakeupCount
+                + ", registrationCount=" + mRegistrationCount
+                + '}';
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import android.os.Handler;
+
+/**
+ * Source of gravity samples for the orientation detection, e.g. a hardware sensor.
+ */
+interface SensorSource {
+
+    interface Callback {
+        /**
+         * A sample in m/s^2 with the timestamp of the sensor event.
+         */
+        void onSample(float x, float y, float z, long timestampNanos);
+    }
+
+    /**
+     * @return name of the source as used in sensor traces
+     * @see de.sevenfactory.leanback.core.SensorTrace#getSource()
+     */
+    String getName();
+
+    /**
+     * Start delivering samples on the handler's thread, restarting with new rates if
+     * already started.
+     *
+     * @param maxReportLatencyUs allowed batching latency, sources may ignore it
+     */
+    void start(Callback callback, int samplingPeriodUs, int maxReportLatencyUs, Handler handler);
+
+    void stop();
+}
@@ -0,0 +1,158 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import android.graphics.Rect;
+import android.graphics.SurfaceTexture;
+import android.view.SurfaceView;
+import android.view.TextureView;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Keeps the buffer size of the first {@link SurfaceView} or {@link TextureView} below a
+ * root fixed while the root changes its size, so decoders rendering into the surface do
+ * not reallocate their output buffers on every fullscreen change. The surface content is
+ * scaled to the view bounds by the compositor instead.
+ * <p/>
+ * The buffer keeps the size it had when it was locked, usually the embedded size.
+ */
+final class SurfacePreserver {
+
+    private final ViewGroup mRoot;
+
+    private View mSurfaceView;
+    private int  mWidth;
+    private int  mHeight;
+
+    SurfacePreserver(ViewGroup root) {
+        mRoot = root;
+    }
+
+    /* Package local */
+
+    boolean isLocked() {
+        return mSurfaceView != null;
+    }
+
+    /**
+     * Fix the buffer size of the surface at its current size. Call before the root changes.
+     */
+    void lock() {
+        if (isLocked() && isAttached(mSurfaceView)) {
+            return;
+        }
+
+        View view = findSurface(mRoot);
+
+        if (view == null || view.getWidth() == 0 || view.getHeight() == 0) {
+            mSurfaceView = null;
+            return;
+        }
+
+        mSurfaceView = view;
+
+        if (view instanceof SurfaceView) {
+            Rect frame = ((SurfaceView) view).getHolder().getSurfaceFrame();
+
+            if (frame != null && !frame.isEmpty()) {
+                mWidth = frame.width();
+                mHeight = frame.height();
+            } else {
+                mWidth = view.getWidth();
+                mHeight = view.getHeight();
+            }
+
+            ((SurfaceView) view).getHolder().setFixedSize(mWidth, mHeight);
+        } else {
+            mWidth = view.getWidth();
+            mHeight = view.getHeight();
+        }
+    }
+
+    /**
+     * A {@link TextureView} resets its buffer size to its bounds whenever it is resized,
+     * call after each layout of the root to restore the locked size.
+     */
+    void onLayout() {
+        if (mSurfaceView instanceof TextureView
+                && (mSurfaceView.getWidth() != mWidth || mSurfaceView.getHeight() != mHeight)) {
+            SurfaceTexture texture = ((TextureView) mSurfaceView).getSurfaceTexture();
+
+            if (texture != null) {
+                texture.setDefaultBufferSize(mWidth, mHeight);
+            }
+        }
+    }
+
+    /**
+     * Let the buffer follow the size of the surface view again.
+     */
+    void unlock() {
+        if (mSurfaceView instanceof SurfaceView) {
+            ((SurfaceView) mSurfaceView).getHolder().setSizeFromLayout();
+        } else if (mSurfaceView instanceof TextureView) {
+            SurfaceTexture texture = ((TextureView) mSurfaceView).getSurfaceTexture();
+
+            if (texture != null) {
+                texture.setDefaultBufferSize(mSurfaceView.getWidth(), mSurfaceView.getHeight());
+            }
+        }
+
+        mSurfaceView = null;
+    }
+
+    /* Private */
+
+    private boolean isAttached(View view) {
+        for (Object parent = view.getParent(); parent instanceof View; parent = ((View) parent).getParent()) {
+            if (parent == mRoot) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static View findSurface(ViewGroup group) {
+        for (int i = 0, count = group.getChildCount(); i < count; i++) {
+            View child = group.getChildAt(i);
+
+            if (child instanceof SurfaceView || child instanceof TextureView) {
+                return child;
+            }
+
+            if (child instanceof ViewGroup) {
+                View surface = findSurface((ViewGroup) child);
+
+                if (surface != null) {
+                    return surface;
+                }
+            }
+        }
+
+        return null;
+    }
+}
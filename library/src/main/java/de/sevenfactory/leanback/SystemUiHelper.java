@@ -21,61 +21,105 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-
 package de.sevenfactory.leanback;
 
 import android.app.Activity;
+import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.text.format.DateUtils;
 import android.view.View;
 
+import de.sevenfactory.leanback.core.SystemUiFlags;
+import de.sevenfactory.leanback.core.SystemUiState;
+import de.sevenfactory.leanback.core.VisibilityArbiter;
+
+/**
+ * Owner of the system UI of a window. There is one instance per window, shared through
+ * {@link #acquire(Activity)} and {@link #release()}: it listens to the decor view on
+ * behalf of all clients and arbitrates their visibility requests, so clients never
+ * overwrite each other's decor view listener or flip the flags back and forth.
+ */
 class SystemUiHelper implements View.OnSystemUiVisibilityChangeListener {
 
-    // System UI visibility flags
-    interface Flags {
-        int SHOW = View.SYSTEM_UI_FLAG_LAYOUT_STABLE            // Stay stable during layout changes
-                | View.SYSTEM_UI_FLAG_LAYOUT_HIDE_NAVIGATION    // Recalc layout  on navigation bar changes
-                | View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN;        // Recalc layout  on system UI changes
+    // Default auto hide delay
+    static final long DELAY = DateUtils.SECOND_IN_MILLIS * 3;
 
-        int HIDE = View.SYSTEM_UI_FLAG_LAYOUT_STABLE            // Stay stable during layout changes
-                | View.SYSTEM_UI_FLAG_LAYOUT_HIDE_NAVIGATION    // Recalc layout on navigation bar changes
-                | View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN         // Recalc layout on system UI changes
-                | View.SYSTEM_UI_FLAG_FULLSCREEN                // Hide System UI
-                | View.SYSTEM_UI_FLAG_HIDE_NAVIGATION;          // Hide navgation bar
-    }
+    private boolean mIsShowing;
+    private boolean mImmersiveSticky;
 
-    // Auto hide delay
-    private static final long DELAY = DateUtils.SECOND_IN_MILLIS * 3;
+    // Requested and confirmed flags
+    private final SystemUiState mState = new SystemUiState();
 
-    private boolean mIsShowing;
+    // Visibility requests of all clients
+    private final VisibilityArbiter mArbiter = new VisibilityArbiter();
 
-    private final boolean  mAutoHide;
     private final View     mDecorView;
-    private final Handler  mHandler;
-    private final Runnable mHideRunnable;
+    private final AutoHideScheduler mHideScheduler;
 
-    private OnSystemUiChangeListener mListener;
+    private final ListenerList<OnSystemUiChangeListener> mListeners = new ListenerList<>();
 
-    /* Constructors */
+    private MetricsListener mMetricsListener = MetricsListener.NONE;
+
+    private FrameTracker mFrameTracker;
 
-    public SystemUiHelper(Activity activity) {
-        this(activity, null);
+    // Time of the last request
+    private long mRequestTime;
+    private boolean mIsRoundTripTraced;
+
+    // Number of clients holding this instance
+    private int mRefCount;
+
+    /* Registry */
+
+    /**
+     * @return the helper of the activity's window, every call has to be balanced
+     *         by a call of {@link #release()}
+     */
+    static SystemUiHelper acquire(Activity activity) {
+        View decorView = activity.getWindow().getDecorView();
+        SystemUiHelper helper = (SystemUiHelper) decorView.getTag(R.id.leanback_system_ui_helper);
+
+        if (helper == null) {
+            helper = new SystemUiHelper(decorView);
+            decorView.setTag(R.id.leanback_system_ui_helper, helper);
+        }
+
+        helper.mRefCount++;
+
+        return helper;
     }
 
-    public SystemUiHelper(Activity activity, OnSystemUiChangeListener listener) {
-        this(activity, listener, true);
+    /**
+     * @return the helper of the window of the decor view, if any client holds it,
+     *         without acquiring it
+     */
+    static SystemUiHelper peek(View decorView) {
+        return (SystemUiHelper) decorView.getTag(R.id.leanback_system_ui_helper);
     }
 
-    public SystemUiHelper(Activity activity, OnSystemUiChangeListener listener, boolean autoHide) {
+    /**
+     * Release a reference obtained by {@link #acquire(Activity)}. The last release
+     * detaches the helper from the window.
+     */
+    void release() {
+        if (--mRefCount > 0) {
+            return;
+        }
+
+        mHideScheduler.cancel();
+        mDecorView.setOnSystemUiVisibilityChangeListener(null);
+        mDecorView.setTag(R.id.leanback_system_ui_helper, null);
+    }
+
+    /* Constructors */
+
+    private SystemUiHelper(View decorView) {
         // Init
-        mDecorView = activity.getWindow().getDecorView();
-        mListener  = listener;
-        mAutoHide  = autoHide;
+        mDecorView = decorView;
 
         // Delayed hide
-        mHandler      = new Handler(Looper.getMainLooper());
-        mHideRunnable = new HideRunnable();
+        mHideScheduler = new AutoHideScheduler(new Handler(Looper.getMainLooper()), new HideRunnable(), DELAY);
 
         // Listen for system UI visibility changes
         mDecorView.setOnSystemUiVisibilityChangeListener(this);
@@ -86,63 +130,144 @@ class SystemUiHelper implements View.OnSystemUiVisibilityChangeListener {
 
     /* Package local */
 
-    void toggle() {
-        if (isShowing()) {
-            hide();
-        } else {
-            show();
+    /**
+     * Request visible or hidden system UI on behalf of the client, replacing its former
+     * request. Visible system UI wins, the flags change only if the outcome changes.
+     * Otherwise a pending auto hide and system UI revealed by the user are left alone.
+     */
+    void request(Object client, boolean visible) {
+        if (mArbiter.request(client, visible)) {
+            apply();
         }
     }
 
-    void show() {
-        mIsShowing = true;
+    /**
+     * Withdraw the request of the client, see {@link #request(Object, boolean)}.
+     */
+    void clearRequest(Object client) {
+        if (mArbiter.clear(client)) {
+            apply();
+        }
+    }
 
-        // Remove currently queued hide calls
-        mHandler.removeCallbacks(mHideRunnable);
+    /**
+     * Add the requests of several clients at once, e.g. requests held by a layout
+     * while it was detached, see {@link #request(Object, boolean)}.
+     */
+    void requestAll(VisibilityArbiter requests) {
+        if (requests.copyTo(mArbiter)) {
+            apply();
+        }
+    }
 
-        // Set flags
-        setFlags(Flags.SHOW);
+    /**
+     * Withdraw the requests of several clients at once, see {@link #requestAll(VisibilityArbiter)}.
+     */
+    void clearAll(VisibilityArbiter requests) {
+        if (requests.removeFrom(mArbiter)) {
+            apply();
+        }
     }
 
-    void hide() {
-        mIsShowing = false;
+    /**
+     * Keeps visible system UI visible for another auto hide delay.
+     */
+    void onUserInteraction() {
+        mHideScheduler.postpone();
+    }
 
-        // Remove currently queued hide calls
-        mHandler.removeCallbacks(mHideRunnable);
+    /**
+     * In immersive sticky mode (API 19+) hidden system UI is revealed transiently on top
+     * of the content by the system, without flag changes, relayouts or auto hide.
+     */
+    void setImmersiveSticky(boolean immersiveSticky) {
+        mImmersiveSticky = immersiveSticky && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT;
 
-        // Set flags
-        setFlags(Flags.HIDE);
+        if (!mIsShowing) {
+            // Apply to the hidden system UI
+            apply();
+        }
     }
 
-    void delayHide(long delayMillis) {
-        // Remove currently queued hide calls
-        mHandler.removeCallbacks(mHideRunnable);
-
-        // Delay new hide call
-        mHandler.postDelayed(mHideRunnable, delayMillis);
+    void setAutoHideDelay(long delayMillis) {
+        mHideScheduler.setDelay(delayMillis);
     }
 
     boolean isShowing() {
         return mIsShowing;
     }
 
-    void setListener(OnSystemUiChangeListener listener) {
-        mListener = listener;
+    void addListener(OnSystemUiChangeListener listener) {
+        mListeners.add(listener);
+    }
+
+    void removeListener(OnSystemUiChangeListener listener) {
+        mListeners.remove(listener);
+    }
+
+    void setMetricsListener(MetricsListener listener) {
+        mMetricsListener = listener;
     }
 
-    void removeListener() {
-        mListener = null;
+    void setFrameTracker(FrameTracker frameTracker) {
+        mFrameTracker = frameTracker;
     }
 
     /* Helpers */
 
+    /**
+     * Apply the arbitrated visibility, also after the user revealed hidden system UI.
+     */
+    private void apply() {
+        boolean isVisible = mArbiter.isVisible();
+
+        // Remove currently queued hide calls
+        mHideScheduler.cancel();
+
+        // Set flags
+        setFlags(SystemUiFlags.flags(isVisible, mImmersiveSticky));
+        setShowing(isVisible);
+    }
+
     private void setFlags(int flags) {
+        // Skip the round trip to the window manager if nothing changes
+        if (!mState.request(flags)) {
+            return;
+        }
+
+        if (LeanbackTrace.ENABLED) {
+            LeanbackTrace.begin(LeanbackTrace.SET_SYSTEM_UI);
+
+            // A superseded request, or one without an echo, ends with the next request
+            if (mIsRoundTripTraced) {
+                LeanbackTrace.endAsync(LeanbackTrace.SYSTEM_UI_ROUND_TRIP, 0);
+            }
+
+            mIsRoundTripTraced = true;
+            LeanbackTrace.beginAsync(LeanbackTrace.SYSTEM_UI_ROUND_TRIP, 0);
+        }
+
+        mRequestTime = System.nanoTime();
         mDecorView.setSystemUiVisibility(flags);
+
+        if (LeanbackTrace.ENABLED) {
+            LeanbackTrace.end();
+        }
+    }
+
+    private void setShowing(boolean isShowing) {
+        // Notify on real transitions only
+        if (mIsShowing != isShowing) {
+            mIsShowing = isShowing;
+            notifyListener();
+        }
     }
 
     private void notifyListener() {
-        if (mListener != null) {
-            mListener.onSystemUiChanged(isShowing());
+        boolean isShowing = isShowing();
+
+        for (Object listener : mListeners.snapshot()) {
+            ((OnSystemUiChangeListener) listener).onSystemUiChanged(isShowing);
         }
     }
 
@@ -150,16 +275,31 @@ class SystemUiHelper implements View.OnSystemUiVisibilityChangeListener {
 
     @Override
     public void onSystemUiVisibilityChange(int visibility) {
-        if (!mIsShowing && mAutoHide && ((visibility & View.SYSTEM_UI_FLAG_FULLSCREEN) == 0)) {
-            mIsShowing = true;
+        boolean isVisible = SystemUiFlags.isVisible(visibility);
+
+        if (mState.onVisibilityChange(visibility)) {
+            // Echo of an own request, the state is already up to date
+            if (mState.isPending()) {
+                // Late echo of a superseded request
+                return;
+            }
+
+            mMetricsListener.onSystemUiRoundTrip(isVisible, System.nanoTime() - mRequestTime);
+
+            if (LeanbackTrace.ENABLED && mIsRoundTripTraced) {
+                mIsRoundTripTraced = false;
+                LeanbackTrace.endAsync(LeanbackTrace.SYSTEM_UI_ROUND_TRIP, 0);
+            }
+            return;
+        }
 
+        // Changed by the user or the system, e.g. revealed by a touch
+        if (isVisible && !mIsShowing) {
             // Autohide
-            delayHide(DELAY);
-        } else {
-            mIsShowing = false;
+            mHideScheduler.schedule();
         }
 
-        notifyListener();
+        setShowing(isVisible);
     }
 
     /* HideRunnable */
@@ -167,9 +307,12 @@ class SystemUiHelper implements View.OnSystemUiVisibilityChangeListener {
     private class HideRunnable implements Runnable {
         @Override
         public void run() {
-            hide();
+            if (mFrameTracker != null) {
+                mFrameTracker.start(OnFrameStatsListener.TRIGGER_SYSTEM_UI_AUTO_HIDE, FrameTracker.WINDOW_NANOS);
+            }
+
+            // Back to the arbitrated visibility
+            apply();
         }
     }
-
-
 }
@@ -0,0 +1,336 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.Rect;
+import android.view.SurfaceView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.RealObject;
+import org.robolectric.internal.Shadow;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.shadows.ShadowView;
+import org.robolectric.util.ReflectionHelpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Performance budgets of a fullscreen toggle for synthetic hierarchies of increasing
+ * depth and width. A toggle may visit the indexed views only, pad each of them at most
+ * once, need a single layout pass and send at most one system UI change. All numbers
+ * are counted by the views of the hierarchy, not reported by the layout. Allocations are
+ * checked on a plain JVM by {@code ToggleAllocationTest} of leanback-core, Robolectric's
+ * instrumentation allocates on intercepted calls.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21, shadows = LeanbackLayoutBudgetTest.CountingShadowView.class)
+public class LeanbackLayoutBudgetTest {
+
+    // Status bar and navigation bar
+    private static final Rect INSETS = new Rect(0, 60, 0, 96);
+
+    private Activity               mActivity;
+    private Counters               mCounters;
+    private FrameLayout            mRoot;
+    private CountingLeanbackLayout mLayout;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mCounters = new Counters();
+
+        mRoot   = new FrameLayout(mActivity);
+        mLayout = new CountingLeanbackLayout(mActivity, mCounters);
+        mLayout.setSystemUiFittingIndexed(true);
+
+        mRoot.addView(mLayout, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 600));
+        mActivity.setContentView(mRoot);
+    }
+
+    @Test
+    public void flatHierarchy() {
+        assertToggleBudgets(1, 1);
+    }
+
+    @Test
+    public void wideHierarchy() {
+        assertToggleBudgets(1, 16);
+        assertToggleBudgets(1, 64);
+    }
+
+    @Test
+    public void deepHierarchy() {
+        assertToggleBudgets(16, 1);
+        assertToggleBudgets(64, 1);
+    }
+
+    @Test
+    public void deepAndWideHierarchy() {
+        assertToggleBudgets(8, 8);
+        assertToggleBudgets(16, 32);
+    }
+
+    @Test
+    public void overdrawAwareAndSurfacePreserving() {
+        mLayout.setOverdrawAware(true);
+        mLayout.setSurfacePreserving(true);
+
+        assertToggleBudgets(1, 16);
+        assertToggleBudgets(16, 1);
+        assertToggleBudgets(16, 32);
+    }
+
+    /* Helpers */
+
+    private void assertToggleBudgets(int depth, int width) {
+        int fitting = buildHierarchy(depth, width);
+        String hierarchy = "depth " + depth + ", width " + width + ": ";
+
+        // Warm up lazily created state, e.g. the coordinator and the system UI state
+        toggle();
+        layout();
+        toggle();
+        layout();
+
+        for (int i = 0; i < 4; i++) {
+            mCounters.reset();
+            CountingShadowView.sSystemUiVisibilityCalls = 0;
+
+            boolean isFullscreen = toggle();
+
+            // Counted before the layout pass, which visits the whole hierarchy
+            int visits = mCounters.mVisits;
+            int layoutRequests = mCounters.mLayoutRequests;
+            int paddingCalls = mCounters.mPaddingCalls;
+
+            // A layout pass must not ask for another one
+            mCounters.reset();
+            layout();
+
+            assertEquals(hierarchy + "state", isFullscreen, mLayout.isFullscreen());
+            assertTrue(hierarchy + visits + " views visited", visits <= fitting);
+            assertTrue(hierarchy + paddingCalls + " setPadding calls", paddingCalls <= fitting + 1);
+
+            // One per padded child, plus padding, layout params and background of the container
+            assertTrue(hierarchy + layoutRequests + " requestLayout calls", layoutRequests <= fitting + 3);
+            assertEquals(hierarchy + "requestLayout calls of the layout pass", 0, mCounters.mLayoutRequests);
+            assertFalse(hierarchy + "layout requested after the layout pass", mRoot.isLayoutRequested());
+            assertTrue(hierarchy + "setSystemUiVisibility calls", CountingShadowView.sSystemUiVisibilityCalls <= 1);
+        }
+    }
+
+    /**
+     * Replaces the content of the layout with a video surface, an opaque view covering
+     * it and {@code width} columns of {@code depth} nested groups, each column ending in
+     * a view which fits system windows.
+     *
+     * @return number of views fitting system windows
+     */
+    private int buildHierarchy(int depth, int width) {
+        mLayout.removeAllViews();
+
+        mLayout.addView(new SurfaceView(mActivity), ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
+
+        View cover = new CountingView(mActivity, mCounters);
+        cover.setBackgroundColor(Color.BLACK);
+        mLayout.addView(cover, ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
+
+        for (int column = 0; column < width; column++) {
+            View child = new CountingView(mActivity, mCounters);
+            child.setFitsSystemWindows(true);
+
+            // Built bottom up, the subtree is indexed when the column is added
+            for (int level = 0; level < depth; level++) {
+                ViewGroup group = new CountingLayout(mActivity, mCounters);
+                group.addView(child);
+                child = group;
+            }
+
+            mLayout.addView(child);
+        }
+
+        // Dispatched by the system on a device
+        mLayout.fitSystemWindows(new Rect(INSETS));
+        layout();
+
+        return width;
+    }
+
+    private boolean toggle() {
+        boolean isFullscreen = mLayout.toggle();
+
+        // Commit the request of the frame
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        return isFullscreen;
+    }
+
+    private void layout() {
+        mRoot.measure(View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1920, View.MeasureSpec.EXACTLY));
+        mRoot.layout(0, 0, 1080, 1920);
+    }
+
+    private static class Counters {
+        int mVisits;
+        int mPaddingCalls;
+        int mLayoutRequests;
+
+        void reset() {
+            mVisits = 0;
+            mPaddingCalls = 0;
+            mLayoutRequests = 0;
+        }
+    }
+
+    /**
+     * Counts the layout requests arriving at the layout and the padding of the container.
+     */
+    private static class CountingLeanbackLayout extends LeanbackLayout {
+        private final Counters mCounters;
+
+        CountingLeanbackLayout(Context context, Counters counters) {
+            super(context);
+            mCounters = counters;
+        }
+
+        @Override
+        public void requestLayout() {
+            if (mCounters != null) {
+                mCounters.mLayoutRequests++;
+            }
+
+            super.requestLayout();
+        }
+
+        @Override
+        public void setPadding(int left, int top, int right, int bottom) {
+            if (mCounters != null) {
+                mCounters.mPaddingCalls++;
+            }
+
+            super.setPadding(left, top, right, bottom);
+        }
+    }
+
+    /**
+     * Walking a group reads its children, visiting a view reads its padding.
+     */
+    private static class CountingLayout extends FrameLayout {
+        private final Counters mCounters;
+
+        CountingLayout(Context context, Counters counters) {
+            super(context);
+            mCounters = counters;
+        }
+
+        @Override
+        public View getChildAt(int index) {
+            if (mCounters != null) {
+                mCounters.mVisits++;
+            }
+
+            return super.getChildAt(index);
+        }
+
+        @Override
+        public int getPaddingLeft() {
+            if (mCounters != null) {
+                mCounters.mVisits++;
+            }
+
+            return super.getPaddingLeft();
+        }
+
+        @Override
+        public void setPadding(int left, int top, int right, int bottom) {
+            if (mCounters != null) {
+                mCounters.mPaddingCalls++;
+            }
+
+            super.setPadding(left, top, right, bottom);
+        }
+    }
+
+    private static class CountingView extends View {
+        private final Counters mCounters;
+
+        CountingView(Context context, Counters counters) {
+            super(context);
+            mCounters = counters;
+        }
+
+        @Override
+        public int getPaddingLeft() {
+            if (mCounters != null) {
+                mCounters.mVisits++;
+            }
+
+            return super.getPaddingLeft();
+        }
+
+        @Override
+        public void setPadding(int left, int top, int right, int bottom) {
+            if (mCounters != null) {
+                mCounters.mPaddingCalls++;
+            }
+
+            super.setPadding(left, top, right, bottom);
+        }
+    }
+
+    /**
+     * Counts the system UI changes sent to the decor view, the only view they are set on.
+     */
+    @Implements(View.class)
+    public static class CountingShadowView extends ShadowView {
+        static int sSystemUiVisibilityCalls;
+
+        @RealObject
+        private View mRealView;
+
+        @Implementation
+        public void setSystemUiVisibility(int visibility) {
+            sSystemUiVisibilityCalls++;
+            Shadow.directlyOn(mRealView, View.class, "setSystemUiVisibility",
+                    ReflectionHelpers.ClassParameter.from(int.class, visibility));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import android.app.Activity;
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Views which fit system windows are found below nested groups, whether they are added
+ * before or after the group is added to the layout. With indexing enabled, nested
+ * additions need an invalidation while nested removals are dropped on their own.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class LeanbackLayoutFittingTest {
+
+    private static final Rect INSETS = new Rect(0, 60, 0, 96);
+
+    private Activity       mActivity;
+    private LeanbackLayout mLayout;
+    private FrameLayout    mGroup;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mLayout   = new LeanbackLayout(mActivity);
+        mGroup    = new FrameLayout(mActivity);
+
+        mLayout.addView(mGroup);
+        mActivity.setContentView(mLayout);
+        mLayout.fitSystemWindows(new Rect(INSETS));
+    }
+
+    @Test
+    public void nestedAdditionFitsByDefault() {
+        enterFullscreen();
+        View view = addFittingView(mGroup);
+
+        refit();
+
+        assertEquals(INSETS.top, view.getPaddingTop());
+    }
+
+    @Test
+    public void nestedAdditionFitsAfterInvalidationWhenIndexed() {
+        mLayout.setSystemUiFittingIndexed(true);
+        enterFullscreen();
+        View view = addFittingView(mGroup);
+
+        refit();
+        assertEquals(0, view.getPaddingTop());
+
+        mLayout.invalidateSystemUiFitting();
+        assertEquals(INSETS.top, view.getPaddingTop());
+    }
+
+    @Test
+    public void nestedRemovalIsDroppedWhenIndexed() {
+        mLayout.setSystemUiFittingIndexed(true);
+        View view = addFittingView(mGroup);
+        mLayout.invalidateSystemUiFitting();
+        enterFullscreen();
+        assertEquals(INSETS.top, view.getPaddingTop());
+
+        mGroup.removeView(view);
+        view.setPadding(0, 0, 0, 0);
+
+        refit();
+        assertEquals(0, view.getPaddingTop());
+    }
+
+    /* Helpers */
+
+    private View addFittingView(ViewGroup parent) {
+        View view = new View(mActivity);
+        view.setFitsSystemWindows(true);
+        parent.addView(view);
+
+        return view;
+    }
+
+    private void enterFullscreen() {
+        mLayout.enterFullscreen();
+
+        // Commit the request of the frame
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertTrue(mLayout.isFullscreen());
+    }
+
+    /**
+     * Leave and enter fullscreen again, which fits all known views.
+     */
+    private void refit() {
+        mLayout.exitFullscreen();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        enterFullscreen();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import android.app.Activity;
+import android.graphics.Rect;
+import android.view.WindowInsets;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ReflectionHelpers;
+import org.robolectric.util.ReflectionHelpers.ClassParameter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Insets are consumed, and thereby allocated, once per distinct insets. Repeated
+ * dispatches hand down the same consumed insets, changes of any field do not.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class LeanbackLayoutInsetsTest {
+
+    private LeanbackLayout mLayout;
+
+    @Before
+    public void setUp() {
+        mLayout = new LeanbackLayout(Robolectric.setupActivity(Activity.class));
+    }
+
+    @Test
+    public void repeatedInsetsAreConsumedOnce() {
+        WindowInsets consumed = mLayout.onApplyWindowInsets(insets(96, 96, false));
+
+        for (int i = 0; i < 16; i++) {
+            assertSame(consumed, mLayout.onApplyWindowInsets(insets(96, 96, false)));
+        }
+
+        assertEquals(96, mLayout.getPaddingBottom());
+    }
+
+    @Test
+    public void changedStableInsetsAreHandedDown() {
+        WindowInsets consumed = mLayout.onApplyWindowInsets(insets(96, 96, false));
+        WindowInsets changed = mLayout.onApplyWindowInsets(insets(96, 0, false));
+
+        assertNotSame(consumed, changed);
+        assertEquals(0, changed.getStableInsetBottom());
+    }
+
+    @Test
+    public void changedRoundFlagIsHandedDown() {
+        WindowInsets consumed = mLayout.onApplyWindowInsets(insets(96, 96, false));
+        WindowInsets changed = mLayout.onApplyWindowInsets(insets(96, 96, true));
+
+        assertNotSame(consumed, changed);
+        assertTrue(changed.isRound());
+    }
+
+    /* Helpers */
+
+    /**
+     * @return new insets of a status bar and a navigation bar of the given heights
+     */
+    private static WindowInsets insets(int navigationBar, int stableNavigationBar, boolean isRound) {
+        return ReflectionHelpers.callConstructor(WindowInsets.class,
+                ClassParameter.from(Rect.class, new Rect(0, 60, 0, navigationBar)),
+                ClassParameter.from(Rect.class, new Rect()),
+                ClassParameter.from(Rect.class, new Rect(0, 60, 0, stableNavigationBar)),
+                ClassParameter.from(boolean.class, isRound));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 ProSiebenSat.1 Digital GmbH
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.sevenfactory.leanback;
+
+import android.app.Activity;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The system UI helper of the window is acquired on first use, off the startup path of
+ * embedded layouts, and requests of other components outlive detaching and the helper.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class LeanbackLayoutSystemUiTest {
+
+    private final Object mClient = new Object();
+
+    private Activity       mActivity;
+    private LeanbackLayout mLayout;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mLayout   = new LeanbackLayout(mActivity);
+    }
+
+    @Test
+    public void attachDoesNotAcquireHelper() {
+        mActivity.setContentView(mLayout);
+
+        assertNull(helper());
+        assertTrue(mLayout.isSystemUiVisible());
+    }
+
+    @Test
+    public void requestAcquiresHelper() {
+        mActivity.setContentView(mLayout);
+        mLayout.requestSystemUiVisibility(mClient, false);
+
+        assertNotNull(helper());
+        assertFalse(mLayout.isSystemUiVisible());
+    }
+
+    @Test
+    public void requestBeforeAttachAppliesOnAttach() {
+        mLayout.requestSystemUiVisibility(mClient, false);
+        mActivity.setContentView(mLayout);
+
+        assertFalse(mLayout.isSystemUiVisible());
+    }
+
+    @Test
+    public void requestSurvivesReattach() {
+        mActivity.setContentView(mLayout);
+        mLayout.requestSystemUiVisibility(mClient, false);
+
+        // The last reference is released, the helper is created again
+        mActivity.setContentView(new View(mActivity));
+        assertNull(helper());
+
+        mActivity.setContentView(mLayout);
+        assertFalse(mLayout.isSystemUiVisible());
+
+        mLayout.clearSystemUiRequest(mClient);
+        assertTrue(mLayout.isSystemUiVisible());
+    }
+
+    /* Helpers */
+
+    private SystemUiHelper helper() {
+        return SystemUiHelper.peek(mActivity.getWindow().getDecorView());
+    }
+}